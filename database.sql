@@ -136,4 +136,69 @@ WHERE total_money IS NULL
    OR shipping_date IS NULL
    OR active IS NULL;
 
+--Lưu SHA-256 của token (binary 32 byte, unique index) để tra cứu O(log n), token thô không còn bị cắt ở 255 ký tự
+ALTER TABLE tokens MODIFY COLUMN token VARCHAR(1000) NOT NULL;
+ALTER TABLE tokens DROP INDEX token;
+ALTER TABLE tokens ADD COLUMN token_hash BINARY(32);
+UPDATE tokens SET token_hash = UNHEX(SHA2(token, 256)) WHERE token_hash IS NULL;
+ALTER TABLE tokens MODIFY COLUMN token_hash BINARY(32) NOT NULL;
+ALTER TABLE tokens ADD UNIQUE INDEX uk_tokens_token_hash (token_hash);
 
+--Mỗi user tối đa 3 phiên: token nằm trong slot 0..2, lần đăng nhập mới ghi đè slot của phiên cũ nhất
+ALTER TABLE users ADD COLUMN session_seq BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE tokens ADD COLUMN slot INT;
+UPDATE tokens t
+JOIN (SELECT id, ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY id DESC) - 1 AS rn FROM tokens) r
+    ON t.id = r.id
+SET t.slot = r.rn;
+DELETE FROM tokens WHERE slot >= 3;
+--slot của token mới nhất là 0 => session_seq = 1, lần login kế tiếp dùng slot 1
+UPDATE tokens t
+JOIN (SELECT user_id, COUNT(*) AS cnt FROM tokens GROUP BY user_id) c ON t.user_id = c.user_id
+SET t.slot = c.cnt - 1 - t.slot;
+UPDATE users u
+JOIN (SELECT user_id, COUNT(*) AS cnt FROM tokens GROUP BY user_id) c ON u.id = c.user_id
+SET u.session_seq = c.cnt;
+ALTER TABLE tokens ADD UNIQUE INDEX uk_tokens_user_slot (user_id, slot);
+
+--Phiên bản token của user, dùng cho chế độ xác thực stateless (jwt.validation-mode=stateless)
+ALTER TABLE users ADD COLUMN token_version INT NOT NULL DEFAULT 0;
+
+--Refresh token dùng một lần, chỉ lưu SHA-256, gắn với phiên trong bảng tokens
+CREATE TABLE refresh_tokens(
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    token_id INT NOT NULL,
+    token_hash BINARY(32) NOT NULL,
+    expiration_date DATETIME NOT NULL,
+    used TINYINT(1) NOT NULL DEFAULT 0,
+    UNIQUE INDEX uk_refresh_tokens_token_hash (token_hash),
+    FOREIGN KEY (token_id) REFERENCES tokens (id)
+);
+
+--order_details dùng pooled sequence (allocationSize = 50) để Hibernate insert theo batch.
+--Chạy trước khi khởi động app, next_val phải lớn hơn MAX(id) ít nhất 50.
+CREATE TABLE order_details_seq(
+    next_val BIGINT
+);
+INSERT INTO order_details_seq SELECT COALESCE(MAX(id), 0) + 51 FROM order_details;
+
+--Kho ảnh content-addressed: đếm tham chiếu theo image_url/thumbnail khi xóa ảnh.
+--File cũ "<UUID>_<tên>" chuyển sang bằng POST /api/v1/products/image-store/migrate (ADMIN).
+CREATE INDEX idx_product_images_image_url ON product_images (image_url);
+CREATE INDEX idx_products_thumbnail ON products (thumbnail);
+
+--product_images dùng pooled sequence (allocationSize = 50) để insert nhiều ảnh trong một batch.
+CREATE TABLE product_images_seq(
+    next_val BIGINT
+);
+INSERT INTO product_images_seq SELECT COALESCE(MAX(id), 0) + 51 FROM product_images;
+
+--Hàng đợi xóa file ảnh, ghi cùng transaction với việc xóa product_images/products
+CREATE TABLE image_deletions(
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    image_name VARCHAR(300) NOT NULL,
+    created_at DATETIME NOT NULL,
+    not_before DATETIME NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    INDEX idx_image_deletions_not_before (not_before)
+);
@@ -1,5 +1,8 @@
 package com.project.shopapp.Configurations;
 
+import com.project.shopapp.dtos.OrderDTO;
+import com.project.shopapp.dtos.OrderWithDetailsDTO;
+import com.project.shopapp.models.Order;
 import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -8,6 +11,17 @@ import org.springframework.context.annotation.Configuration;
 public class MapperConfiguration {
     @Bean
     public ModelMapper modelMapper() {
-        return new ModelMapper();
+        ModelMapper modelMapper = new ModelMapper();
+        // Type map được dựng một lần lúc khởi động, service chỉ gọi map() nên không sửa cấu hình dùng chung
+        // id và user do service tự gán, không map userId => user.id lên entity đang được quản lý
+        modelMapper.emptyTypeMap(OrderDTO.class, Order.class)
+                .addMappings(mapper -> {
+                    mapper.skip(Order::setId);
+                    mapper.skip(Order::setUser);
+                })
+                .implicitMappings();
+        modelMapper.typeMap(OrderWithDetailsDTO.class, Order.class)
+                .addMappings(mapper -> mapper.skip(Order::setId));
+        return modelMapper;
     }
 }
@@ -0,0 +1,264 @@
+package com.project.shopapp.components;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts cache invalidations to every node over Redis pub/sub, so that
+ * in-process caches (TieredCache L1, UserPrincipalCache, the product search
+ * index) do not drift apart across instances.
+ * <p>
+ * A message is the compact string {@code node|namespace|version|key}, where
+ * the key {@code *} means the whole namespace. Each publish also increments
+ * a per-namespace counter in the Redis hash {@value #VERSIONS_KEY}. Pub/sub
+ * delivers at most once and drops messages while a node reconnects, so every
+ * node periodically compares the counters with the versions it has seen. If
+ * any version is missing, it clears that namespace locally.
+ * <p>
+ * Each node also tracks the version it has applied: the highest version up
+ * to which every change was evicted locally, whether it came from this node
+ * or from a message. HTTP validators are derived from it, so a node never
+ * hands out an ETag for data it has not evicted yet.
+ */
+@Component
+public class CacheInvalidationBus implements MessageListener {
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+    public static final String CHANNEL = "cache:invalidation";
+    public static final String VERSIONS_KEY = "cache:invalidation:versions";
+    public static final String ALL_KEYS = "*";
+
+    private record Handler(Consumer<String> evictKey, Runnable evictAll) {
+    }
+
+    // Các version đã nhận/đã gửi của một namespace kể từ lần kiểm tra trước
+    private static final class VersionState {
+        final ConcurrentSkipListSet<Long> handled = new ConcurrentSkipListSet<>();
+        volatile long checkedUpTo = -1;
+        volatile long lastRemote = -1;
+        // mọi version <= applied đã được xóa local; appliedAhead = version đã áp dụng nhưng còn lỗ phía trước
+        long applied = -1;
+        final TreeSet<Long> appliedAhead = new TreeSet<>();
+
+        synchronized void markApplied(long version) {
+            if (applied >= 0 && version <= applied) {
+                return;
+            }
+            appliedAhead.add(version);
+            advance();
+        }
+
+        // Đã xóa toàn bộ namespace: mọi version <= version coi như đã áp dụng
+        synchronized void markAppliedUpTo(long version) {
+            applied = Math.max(applied, version);
+            appliedAhead.headSet(applied, true).clear();
+            advance();
+        }
+
+        // Mốc ban đầu khi chưa đọc được version lúc đăng ký
+        synchronized void startAt(long version) {
+            if (applied < 0) {
+                markAppliedUpTo(version);
+            }
+        }
+
+        synchronized void resetApplied(long version) {
+            applied = version;
+            appliedAhead.clear();
+        }
+
+        synchronized Long appliedVersion() {
+            return applied < 0 || !appliedAhead.isEmpty() ? null : applied;
+        }
+
+        private void advance() {
+            if (applied < 0) {
+                return;
+            }
+            while (appliedAhead.remove(applied + 1)) {
+                applied++;
+            }
+        }
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+    private final Map<String, VersionState> versions = new ConcurrentHashMap<>();
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate,
+                                RedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    // evictKey/evictAll chỉ được xóa dữ liệu local, không publish lại
+    public void register(String namespace, Consumer<String> evictKey, Runnable evictAll) {
+        handlers.put(namespace, new Handler(evictKey, evictAll));
+        VersionState state = versions.computeIfAbsent(namespace, ns -> new VersionState());
+        // dữ liệu local đang rỗng nên mọi version trước lúc đăng ký coi như đã áp dụng
+        Long current = currentVersion(namespace);
+        if (current != null) {
+            state.markAppliedUpTo(current);
+        }
+    }
+
+    public void publish(String namespace, String key) {
+        send(namespace, nextVersion(namespace), key);
+    }
+
+    /**
+     * First half of {@link #publish}: increments the namespace version
+     * without notifying anyone yet. Callers that must make the new version
+     * visible before they touch shared state (TieredCache deletes from Redis
+     * only after this) call {@link #send} once they are done. Returns null if
+     * Redis is unavailable.
+     */
+    public Long nextVersion(String namespace) {
+        try {
+            Long version = redisTemplate.opsForHash().increment(VERSIONS_KEY, namespace, 1);
+            versions.computeIfAbsent(namespace, ns -> new VersionState()).handled.add(version);
+            return version;
+        } catch (RuntimeException e) {
+            // các node khác sẽ tự xóa khi thấy version lệch ở lần kiểm tra sau
+            logger.warn("Cannot increment invalidation version of {}: {}", namespace, e.getMessage());
+            return null;
+        }
+    }
+
+    // Gọi sau khi node này đã xóa dữ liệu local của thay đổi
+    public void send(String namespace, Long version, String key) {
+        if (version == null) {
+            return;
+        }
+        versions.computeIfAbsent(namespace, ns -> new VersionState()).markApplied(version);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, nodeId + "|" + namespace + "|" + version + "|" + key);
+        } catch (RuntimeException e) {
+            logger.warn("Cannot publish invalidation {}:{}: {}", namespace, key, e.getMessage());
+        }
+    }
+
+    public void publishAll(String namespace) {
+        publish(namespace, ALL_KEYS);
+    }
+
+    // Version hiện tại của namespace, tăng sau mỗi lần dữ liệu thay đổi; null nếu Redis lỗi
+    public Long currentVersion(String namespace) {
+        try {
+            Object value = redisTemplate.opsForHash().get(VERSIONS_KEY, namespace);
+            return value == null ? 0L : Long.parseLong(String.valueOf(value));
+        } catch (RuntimeException e) {
+            logger.warn("Cannot read invalidation version of {}: {}", namespace, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Highest version this node has fully applied, or null while some change
+     * is still missing locally (a message not yet received, a handler that
+     * failed) or before the node knows where it started.
+     */
+    public Long appliedVersion(String namespace) {
+        VersionState state = versions.get(namespace);
+        return state == null ? null : state.appliedVersion();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 4);
+        if (parts.length != 4) {
+            logger.warn("Invalid invalidation message: {}", body);
+            return;
+        }
+        String namespace = parts[1];
+        long version = Long.parseLong(parts[2]);
+        VersionState state = versions.computeIfAbsent(namespace, ns -> new VersionState());
+        if (nodeId.equals(parts[0])) {
+            state.handled.add(version);
+            return;
+        }
+        Handler handler = handlers.get(namespace);
+        if (handler == null) {
+            state.handled.add(version);
+            return;
+        }
+        try {
+            if (ALL_KEYS.equals(parts[3])) {
+                handler.evictAll().run();
+            } else {
+                handler.evictKey().accept(parts[3]);
+            }
+        } catch (RuntimeException e) {
+            // không đánh dấu đã nhận: lần kiểm tra version sau sẽ xóa cả namespace
+            logger.warn("Cannot apply invalidation {}:{}: {}", namespace, parts[3], e.getMessage());
+            return;
+        }
+        state.handled.add(version);
+        state.markApplied(version);
+    }
+
+    /**
+     * Versions up to the counter value seen at the previous check must have
+     * arrived by now. Newer versions get one more interval, because their
+     * messages may still be in flight.
+     */
+    @Scheduled(fixedDelayString = "${cache.invalidation.version-check-ms:5000}")
+    public void checkVersions() {
+        Map<Object, Object> remote;
+        try {
+            remote = redisTemplate.opsForHash().entries(VERSIONS_KEY);
+        } catch (RuntimeException e) {
+            logger.warn("Cannot read invalidation versions: {}", e.getMessage());
+            return;
+        }
+        handlers.forEach((namespace, handler) -> {
+            VersionState state = versions.get(namespace);
+            Object value = remote.get(namespace);
+            long remoteVersion = value == null ? 0 : Long.parseLong(String.valueOf(value));
+            if (state.checkedUpTo < 0) {
+                // lần đầu: mốc bắt đầu theo dõi
+                state.checkedUpTo = remoteVersion;
+                state.lastRemote = remoteVersion;
+                state.startAt(remoteVersion);
+                return;
+            }
+            if (remoteVersion < state.lastRemote) {
+                // bộ đếm bị reset (Redis bị flush), không biết đã mất gì => xóa hết
+                handler.evictAll().run();
+                state.handled.clear();
+                state.checkedUpTo = remoteVersion;
+                state.lastRemote = remoteVersion;
+                state.resetApplied(remoteVersion);
+                return;
+            }
+            boolean missed = false;
+            for (long v = state.checkedUpTo + 1; !missed && v <= state.lastRemote; v++) {
+                missed = !state.handled.contains(v);
+            }
+            if (missed) {
+                logger.warn("Missed invalidations for {}, clearing local copies", namespace);
+                handler.evictAll().run();
+                state.markAppliedUpTo(remoteVersion);
+            }
+            state.checkedUpTo = state.lastRemote;
+            state.lastRemote = remoteVersion;
+            state.handled.headSet(state.checkedUpTo, true).clear();
+        });
+    }
+}
@@ -0,0 +1,30 @@
+package com.project.shopapp.components;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of COUNT(*) results for paginated lists. Cursor pages
+ * only report a total when the client asks for it, and the value may be up
+ * to a TTL old, so a deep scroll does not re-count the table on every page.
+ */
+@Component
+public class CountCache {
+    private final Cache<String, Long> counts;
+
+    public CountCache(@Value("${pagination.count-cache-seconds:60}") long ttlSeconds) {
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public long get(String key, Supplier<Long> loader) {
+        return counts.get(key, k -> loader.get());
+    }
+}
@@ -0,0 +1,244 @@
+package com.project.shopapp.components;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves uploaded images straight from disk.
+ * <p>
+ * The file name is resolved inside the upload directory, and anything that
+ * escapes it is treated as not found. The MIME type comes from the magic
+ * bytes, not the extension. Size, mtime and type are cached per file.
+ * ETag / Last-Modified produce 304s. A single {@code bytes=} range is
+ * answered with 206. Files named with a UUID or a content hash never change,
+ * so they are marked immutable for a year.
+ * <p>
+ * Content-addressed names ({@code <sha256>.<ext>}) live under two levels of
+ * hash shards, {@code ab/cd/abcd...ext}. {@link #storagePath} maps an image
+ * name to that layout. Older flat names map to themselves.
+ * <p>
+ * When Tomcat supports sendfile, the body is left to the connector: the
+ * request thread returns at once and the kernel copies the file to the
+ * socket. Otherwise the body goes through {@link FileChannel#transferTo}.
+ */
+@Component
+public class ImageFileServer {
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    private static final Pattern UUID_PREFIX = Pattern.compile(
+            "^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}.*");
+    private static final Pattern CONTENT_HASH = Pattern.compile("^[0-9a-f]{64}\\.[a-z0-9]{1,5}$");
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    private static final CacheControl MUTABLE = CacheControl.maxAge(Duration.ofHours(1)).cachePublic();
+    // ảnh gốc trả tạm khi variant chưa sinh xong
+    private static final CacheControl FALLBACK = CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic();
+
+    private record FileMeta(long size, long lastModified, String contentType) {
+    }
+
+    private final Path uploadDir;
+    private final Cache<Path, FileMeta> metadata = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+
+    public ImageFileServer(@Value("${storage.upload-dir:uploads}") String uploadDir) {
+        this.uploadDir = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    public Path getUploadDir() {
+        return uploadDir;
+    }
+
+    public static boolean isContentAddressed(String imageName) {
+        return imageName != null && CONTENT_HASH.matcher(imageName).matches();
+    }
+
+    // Đường dẫn tương đối của ảnh trong thư mục upload: "ab/cd/<hash>.<ext>" hoặc tên cũ
+    public static String storagePath(String imageName) {
+        if (!isContentAddressed(imageName)) {
+            return imageName;
+        }
+        return imageName.substring(0, 2) + "/" + imageName.substring(2, 4) + "/" + imageName;
+    }
+
+    public Path resolveImage(String imageName) {
+        return resolve(storagePath(imageName));
+    }
+
+    // null nếu tên file trỏ ra ngoài thư mục upload
+    public Path resolve(String fileName) {
+        if (fileName == null || fileName.isEmpty() || fileName.indexOf('\0') >= 0) {
+            return null;
+        }
+        Path resolved = uploadDir.resolve(fileName).normalize();
+        return resolved.startsWith(uploadDir) && !resolved.equals(uploadDir) ? resolved : null;
+    }
+
+    public void serve(String fileName, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        serve(fileName, true, request, response);
+    }
+
+    // cacheable = false: nội dung URL này sẽ đổi sớm (vd. variant đang được sinh), chỉ cache ngắn
+    public void serve(String fileName, boolean cacheable, HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        Path file = resolve(fileName);
+        FileMeta meta = file == null ? null : readMeta(file);
+        if (meta == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String etag = "\"" + Long.toHexString(meta.size()) + "-" + Long.toHexString(meta.lastModified()) + "\"";
+        String name = file.getFileName().toString();
+        boolean immutable = UUID_PREFIX.matcher(name).matches() || CONTENT_HASH.matcher(name).matches();
+        CacheControl cacheControl = !cacheable ? FALLBACK : immutable ? IMMUTABLE : MUTABLE;
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(etag, meta.lastModified())) {
+            return;
+        }
+
+        long start = 0;
+        long end = meta.size() - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // If-Range không khớp => file đã đổi, trả nguyên file
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            Matcher matcher = SINGLE_RANGE.matcher(range.trim());
+            // nhiều range (multipart/byteranges) không hỗ trợ => bỏ qua header Range, trả 200
+            if (matcher.matches()) {
+                String first = matcher.group(1);
+                String last = matcher.group(2);
+                try {
+                    if (first.isEmpty()) {
+                        // bytes=-N: N byte cuối
+                        start = Math.max(0, meta.size() - Long.parseLong(last));
+                    } else {
+                        start = Long.parseLong(first);
+                        if (!last.isEmpty()) {
+                            end = Math.min(end, Long.parseLong(last));
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                    start = meta.size();
+                }
+                if (start > end || (first.isEmpty() && last.isEmpty())) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + meta.size());
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + meta.size());
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentType(meta.contentType());
+        response.setContentLengthLong(length);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (position <= end) {
+                long sent = channel.transferTo(position, end + 1 - position, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+            out.flush();
+        }
+    }
+
+    public void evict(Path file) {
+        metadata.invalidate(file);
+    }
+
+    private FileMeta readMeta(Path file) throws IOException {
+        FileMeta cached = metadata.getIfPresent(file);
+        if (cached != null) {
+            return cached;
+        }
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            FileMeta meta = new FileMeta(Files.size(file),
+                    Files.getLastModifiedTime(file).toMillis(),
+                    detectContentType(file));
+            metadata.put(file, meta);
+            return meta;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    // Nhận diện theo magic bytes thay vì đuôi file
+    public static String detectContentType(Path file) throws IOException {
+        byte[] header = new byte[12];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(header, 0, header.length);
+        }
+        String detected = detectContentType(header, read);
+        return detected != null ? detected : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    public static String detectContentType(byte[] header, int length) {
+        if (length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return MediaType.IMAGE_JPEG_VALUE;
+        }
+        if (length >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+            return MediaType.IMAGE_PNG_VALUE;
+        }
+        if (length >= 6 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+            return MediaType.IMAGE_GIF_VALUE;
+        }
+        if (length >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "image/webp";
+        }
+        if (length >= 2 && header[0] == 'B' && header[1] == 'M') {
+            return "image/bmp";
+        }
+        return null;
+    }
+}
@@ -4,13 +4,12 @@ import com.project.shopapp.models.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.project.shopapp.exceptions.InvalidParamException;
-import com.project.shopapp.models.Token;
-import com.project.shopapp.repositories.TokenRepository;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.io.Encoders;
 import io.jsonwebtoken.security.Keys;
 import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -23,11 +22,25 @@ import java.util.function.Function;
 @RequiredArgsConstructor
 public class JwtTokenUtils {
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenUtils.class);
-    private final TokenRepository tokenRepository;
+    private final TokenRevocationIndex tokenRevocationIndex;
     @Value("${jwt.expiration}")
     private int expiration;
     @Value("${jwt.secret}")
     private String secretKey;
+    // stateful: tra bảng tokens (qua TokenRevocationIndex), stateless: chỉ so sánh tokenVersion
+    @Value("${jwt.validation-mode:stateful}")
+    private String validationMode;
+    // Key và parser chỉ dựng một lần, JwtParser là immutable nên dùng chung giữa các thread
+    private Key signInKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
+        signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
+    }
 
     public String generateToken(com.project.shopapp.models.User user) throws Exception {
         //properties => claims
@@ -35,6 +48,7 @@ public class JwtTokenUtils {
         //this.generateSecretKey();
         claims.put("phoneNumber", user.getPhoneNumber());
         claims.put("userId", user.getId());
+        claims.put("tokenVersion", user.getTokenVersion());
         try {
             String token = Jwts.builder()
                     .setClaims(claims)
@@ -51,9 +65,8 @@ public class JwtTokenUtils {
     }
 
     private Key getSignInKey() {
-        byte[] bytes = Decoders.BASE64.decode(secretKey);
         //Keys.hmacShaKeyFor(Decoders.BASE64.decode("TaqlmGv1iEDMRiFp/pHuID1+T84IABfuA0xXh4GhiUI="));
-        return Keys.hmacShaKeyFor(bytes);
+        return signInKey;
     }
 
     private String generateSecretKey() {
@@ -64,12 +77,17 @@ public class JwtTokenUtils {
         return secretKey;
     }
 
+    /**
+     * Verify the signature and parse the claims exactly once.
+     * The result can be passed to {@link #validateToken(String, Claims, User)}
+     * so the same request does not verify the token again.
+     */
+    public Claims parseClaims(String token) {
+        return jwtParser.parseClaimsJws(token).getBody();
+    }
+
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parseClaims(token);
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -83,22 +101,17 @@ public class JwtTokenUtils {
         return expirationDate.before(new Date());
     }
 
+    public boolean isStateless() {
+        return "stateless".equalsIgnoreCase(validationMode);
+    }
+
     public String extractPhoneNumber(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
     public boolean validateToken(String token, User userDetails) {
         try {
-            String phoneNumber = extractPhoneNumber(token);
-            Token existingToken = tokenRepository.findByToken(token);
-            if (existingToken == null ||
-                    existingToken.isRevoked() ||
-                    !userDetails.isActive()
-            ) {
-                return false;
-            }
-            return (phoneNumber.equals(userDetails.getUsername()))
-                    && !isTokenExpired(token);
+            return validateToken(token, parseClaims(token), userDetails);
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -111,4 +124,23 @@ public class JwtTokenUtils {
 
         return false;
     }
+
+    // claims đã được verify bởi parseClaims, không parse lại token
+    public boolean validateToken(String token, Claims claims, User userDetails) {
+        String phoneNumber = claims.getSubject();
+        if (!userDetails.isActive()) {
+            return false;
+        }
+        if (isStateless()) {
+            Number tokenVersion = claims.get("tokenVersion", Number.class);
+            if (tokenVersion == null || tokenVersion.intValue() != userDetails.getTokenVersion()) {
+                return false;
+            }
+        } else if (!tokenRevocationIndex.isActive(token)) {
+            return false;
+        }
+        return phoneNumber != null
+                && phoneNumber.equals(userDetails.getUsername())
+                && !claims.getExpiration().before(new Date());
+    }
 }
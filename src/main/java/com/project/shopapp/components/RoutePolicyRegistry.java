@@ -0,0 +1,203 @@
+package com.project.shopapp.components;
+
+import com.project.shopapp.models.Role;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.http.HttpMethod.*;
+
+/**
+ * Single source of truth for the access rules of every API route.
+ * WebSecurityConfig registers the rules in order, and JwtTokenFilter looks
+ * up the same rules to decide which requests skip token parsing.
+ * <p>
+ * Rules use the Ant-style patterns Spring Security already understands.
+ * At startup they are compiled into one path trie per HTTP method. A lookup
+ * walks the path segments in place, without allocating, and returns the
+ * first declared rule that matches, just like the security chain does.
+ */
+@Component
+public class RoutePolicyRegistry {
+    public enum Access { PUBLIC, AUTHENTICATED, ROLES }
+
+    public record Route(HttpMethod method, String pattern, Access access, String... roles) {
+    }
+
+    private final List<Route> routes;
+    private final Map<String, Node> tries = new HashMap<>();
+
+    public RoutePolicyRegistry(@Value("${api.prefix}") String apiPrefix) {
+        List<Route> declared = new ArrayList<>();
+        declared.add(route(POST, apiPrefix + "/users/register", Access.PUBLIC));
+        declared.add(route(POST, apiPrefix + "/users/login", Access.PUBLIC));
+        declared.add(route(POST, apiPrefix + "/users/refresh", Access.PUBLIC));
+
+        declared.add(route(GET, apiPrefix + "/roles**", Access.ROLES, Role.ADMIN));
+
+        declared.add(route(GET, apiPrefix + "/categories**", Access.PUBLIC));
+        declared.add(route(GET, apiPrefix + "/categories/**", Access.PUBLIC));
+        declared.add(route(POST, apiPrefix + "/categories/**", Access.ROLES, Role.ADMIN));
+        declared.add(route(PUT, apiPrefix + "/categories/**", Access.ROLES, Role.ADMIN));
+        declared.add(route(DELETE, apiPrefix + "/categories/**", Access.ROLES, Role.ADMIN));
+
+        declared.add(route(GET, apiPrefix + "/products/images/*", Access.PUBLIC));
+        declared.add(route(GET, apiPrefix + "/products/featured", Access.PUBLIC));
+        declared.add(route(GET, apiPrefix + "/products", Access.PUBLIC));
+        declared.add(route(GET, apiPrefix + "/products/image-variants/**", Access.ROLES, Role.ADMIN));
+        declared.add(route(GET, apiPrefix + "/products/image-store/**", Access.ROLES, Role.ADMIN));
+        declared.add(route(GET, apiPrefix + "/products/**", Access.PUBLIC));
+        declared.add(route(POST, apiPrefix + "/products**", Access.ROLES, Role.ADMIN));
+        declared.add(route(POST, apiPrefix + "/products/**", Access.ROLES, Role.ADMIN));
+        declared.add(route(PUT, apiPrefix + "/products/**", Access.ROLES, Role.ADMIN));
+        declared.add(route(DELETE, apiPrefix + "/products/**", Access.ROLES, Role.ADMIN));
+
+        declared.add(route(POST, apiPrefix + "/orders/**", Access.ROLES, Role.USER, Role.ADMIN));
+        declared.add(route(GET, apiPrefix + "/orders/**", Access.ROLES, Role.USER, Role.ADMIN));
+        declared.add(route(PUT, apiPrefix + "/orders/**", Access.ROLES, Role.ADMIN));
+        declared.add(route(DELETE, apiPrefix + "/orders/**", Access.ROLES, Role.ADMIN));
+
+        declared.add(route(POST, apiPrefix + "/order_details/**", Access.ROLES, Role.USER, Role.ADMIN));
+        declared.add(route(GET, apiPrefix + "/order_details/**", Access.ROLES, Role.USER, Role.ADMIN));
+        declared.add(route(PUT, apiPrefix + "/order_details/**", Access.ROLES, Role.ADMIN));
+        declared.add(route(DELETE, apiPrefix + "/order_details/**", Access.ROLES, Role.ADMIN));
+
+        declared.add(route(GET, apiPrefix + "/healthcheck/**", Access.PUBLIC));
+        declared.add(route(GET, apiPrefix + "/coupons/**", Access.ROLES, Role.USER, Role.ADMIN));
+        declared.add(route(GET, apiPrefix + "/banners/**", Access.PUBLIC));
+
+        declared.add(route(GET, apiPrefix + "/users", Access.ROLES, Role.ADMIN));
+        declared.add(route(GET, apiPrefix + "/users/principal-cache/**", Access.ROLES, Role.ADMIN));
+        declared.add(route(DELETE, apiPrefix + "/users/**", Access.ROLES, Role.ADMIN));
+        declared.add(route(PUT, apiPrefix + "/users/role/**", Access.ROLES, Role.ADMIN));
+        declared.add(route(PUT, apiPrefix + "/users/active/**", Access.ROLES, Role.ADMIN));
+
+        this.routes = Collections.unmodifiableList(declared);
+        for (int i = 0; i < routes.size(); i++) {
+            Route route = routes.get(i);
+            Node root = tries.computeIfAbsent(route.method().name(), method -> new Node());
+            root.insert(route.pattern(), i);
+        }
+    }
+
+    private static Route route(HttpMethod method, String pattern, Access access, String... roles) {
+        return new Route(method, pattern, access, roles);
+    }
+
+    // Thứ tự khai báo = thứ tự đăng ký vào SecurityFilterChain
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    public Route match(String method, String path) {
+        Node root = tries.get(method);
+        if (root == null) {
+            return null;
+        }
+        int index = root.match(path, 0, Integer.MAX_VALUE);
+        return index == Integer.MAX_VALUE ? null : routes.get(index);
+    }
+
+    public boolean isPublic(String method, String path) {
+        Route route = match(method, path);
+        return route != null && route.access() == Access.PUBLIC;
+    }
+
+    /**
+     * One trie node per path segment. A segment is either a literal, a
+     * wildcard with a literal prefix ({@code *} or {@code categories*}), or
+     * a trailing {@code **} that also matches zero segments.
+     */
+    private static final class Node {
+        private String[] literalKeys = new String[0];
+        private Node[] literalChildren = new Node[0];
+        private String[] prefixKeys = new String[0];
+        private Node[] prefixChildren = new Node[0];
+        private int terminalRule = Integer.MAX_VALUE;
+        private int anyDepthRule = Integer.MAX_VALUE;
+
+        void insert(String pattern, int rule) {
+            Node node = this;
+            String[] segments = pattern.split("/");
+            for (String segment : segments) {
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                if (segment.equals("**")) {
+                    node.anyDepthRule = Math.min(node.anyDepthRule, rule);
+                    return;
+                }
+                int star = segment.indexOf('*');
+                if (star < 0) {
+                    node = node.child(segment, false);
+                } else {
+                    // "products**" trong một segment tương đương "products*"
+                    node = node.child(segment.substring(0, star), true);
+                }
+            }
+            node.terminalRule = Math.min(node.terminalRule, rule);
+        }
+
+        private Node child(String key, boolean prefix) {
+            String[] keys = prefix ? prefixKeys : literalKeys;
+            Node[] children = prefix ? prefixChildren : literalChildren;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key)) {
+                    return children[i];
+                }
+            }
+            Node created = new Node();
+            String[] newKeys = Arrays.copyOf(keys, keys.length + 1);
+            Node[] newChildren = Arrays.copyOf(children, children.length + 1);
+            newKeys[keys.length] = key;
+            newChildren[children.length] = created;
+            if (prefix) {
+                prefixKeys = newKeys;
+                prefixChildren = newChildren;
+            } else {
+                literalKeys = newKeys;
+                literalChildren = newChildren;
+            }
+            return created;
+        }
+
+        // trả về chỉ số rule nhỏ nhất khớp với path bắt đầu từ vị trí pos
+        int match(String path, int pos, int best) {
+            best = Math.min(best, anyDepthRule);
+            int length = path.length();
+            int start = pos;
+            while (pos < length && path.charAt(pos) == '/') {
+                pos++;
+            }
+            if (pos == length) {
+                // "/products/" không khớp "/products", giống AntPathMatcher
+                return pos > start ? best : Math.min(best, terminalRule);
+            }
+            int end = path.indexOf('/', pos);
+            if (end < 0) {
+                end = length;
+            }
+            int segmentLength = end - pos;
+            for (int i = 0; i < literalKeys.length; i++) {
+                String key = literalKeys[i];
+                if (key.length() == segmentLength && path.regionMatches(pos, key, 0, segmentLength)) {
+                    best = literalChildren[i].match(path, end, best);
+                }
+            }
+            for (int i = 0; i < prefixKeys.length; i++) {
+                String key = prefixKeys[i];
+                if (key.length() <= segmentLength && path.regionMatches(pos, key, 0, key.length())) {
+                    best = prefixChildren[i].match(path, end, best);
+                }
+            }
+            return best;
+        }
+    }
+}
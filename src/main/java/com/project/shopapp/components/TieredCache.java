@@ -0,0 +1,253 @@
+package com.project.shopapp.components;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Two-level cache: a small in-process Caffeine L1 in front of Redis (L2).
+ * <p>
+ * A miss goes through {@code Cache.get}, so only one thread per key and node
+ * reads Redis or recomputes the value. Concurrent callers wait for that
+ * result instead of all hitting the database. Both levels expire after a TTL
+ * with random jitter, so entries written together do not all expire at once.
+ * Every Redis key is also recorded in a per-namespace set, which lets
+ * {@link #evictAll()} clear the namespace without a KEYS scan; the set is
+ * popped and deleted in bounded chunks. Redis errors are logged and treated
+ * as a miss.
+ * <p>
+ * A loaded value is written back to Redis only if the CacheInvalidationBus
+ * version of the namespace is unchanged since before the load. Evictions
+ * bump that version before deleting from Redis, so a loader that read the
+ * old row cannot put it back after another node's delete.
+ * <p>
+ * Instances are created through {@link TieredCacheManager}.
+ */
+public class TieredCache<V> {
+    private static final Logger logger = LoggerFactory.getLogger(TieredCache.class);
+    private static final int EVICT_BATCH_SIZE = 500;
+    // KEYS: key, hash version, set key; ARGV: namespace, version lúc bắt đầu load, value, ttl, thành viên set, ttl của set
+    private static final byte[] CONDITIONAL_SET = (
+            "if (redis.call('HGET', KEYS[2], ARGV[1]) or '0') ~= ARGV[2] then return 0 end "
+                    + "redis.call('SET', KEYS[1], ARGV[3], 'PX', ARGV[4]) "
+                    + "redis.call('SADD', KEYS[3], ARGV[5]) "
+                    + "redis.call('PEXPIRE', KEYS[3], ARGV[6]) "
+                    + "return 1").getBytes(StandardCharsets.UTF_8);
+
+    private final String name;
+    private final JavaType valueType;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final CacheInvalidationBus invalidationBus;
+    private final Duration redisTtl;
+    private final double jitter;
+    // set key sống lâu hơn mọi key con, namespace không còn được ghi thì tự hết hạn
+    private final long keysSetTtlMillis;
+    private final Cache<String, V> local;
+
+    TieredCache(String name, JavaType valueType, RedisTemplate<String, Object> redisTemplate,
+                ObjectMapper objectMapper, CacheInvalidationBus invalidationBus, Duration localTtl, Duration redisTtl, double jitter, long maxSize) {
+        this.name = name;
+        this.valueType = valueType;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.invalidationBus = invalidationBus;
+        this.redisTtl = redisTtl;
+        this.jitter = jitter;
+        this.keysSetTtlMillis = (long) (redisTtl.toMillis() * (1 + jitter)) + 1000;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, V>() {
+                    @Override
+                    public long expireAfterCreate(String key, V value, long currentTime) {
+                        return withJitter(localTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, V value, long currentTime, long currentDuration) {
+                        return withJitter(localTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, V value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public V get(String key, Supplier<V> loader) {
+        return local.get(key, k -> load(k, loader));
+    }
+
+    /**
+     * Bulk lookup: L1 first, then one MGET for the L1 misses, then a single
+     * loader call for whatever Redis did not have. The loaded values are
+     * written back to Redis in one pipeline. Keys the loader does not return
+     * are left out of the result and are not cached.
+     */
+    public Map<String, V> getAll(Collection<String> keys, Function<Set<String>, Map<String, V>> loader) {
+        return local.getAll(keys, missing -> loadAll(missing, loader));
+    }
+
+    // Xóa L1 và Redis của một key, rồi báo các node khác xóa L1 của họ.
+    // Version tăng trước khi DEL nên lượt ghi-lại đang dở (đã đọc DB cũ) không ghi được sau DEL.
+    public void evict(String key) {
+        local.invalidate(key);
+        Long version = invalidationBus.nextVersion(name);
+        try {
+            redisTemplate.delete(redisKey(key));
+        } catch (RuntimeException e) {
+            logger.warn("Cannot evict {} from redis: {}", redisKey(key), e.getMessage());
+        }
+        invalidationBus.send(name, version, key);
+    }
+
+    public void evictAll() {
+        local.invalidateAll();
+        Long version = invalidationBus.nextVersion(name);
+        try {
+            // SPOP từng lô, không gửi một lệnh DEL khổng lồ chặn Redis
+            List<Object> keys;
+            do {
+                keys = redisTemplate.opsForSet().pop(keysSetKey(), EVICT_BATCH_SIZE);
+                if (keys != null && !keys.isEmpty()) {
+                    redisTemplate.delete(keys.stream().map(String::valueOf).toList());
+                }
+            } while (keys != null && keys.size() == EVICT_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            logger.warn("Cannot clear cache {} in redis: {}", name, e.getMessage());
+        }
+        invalidationBus.send(name, version, CacheInvalidationBus.ALL_KEYS);
+    }
+
+    // Chỉ xóa L1 của node này, dùng khi node khác đã xóa Redis (qua CacheInvalidationBus)
+    public void evictLocal(String key) {
+        local.invalidate(key);
+    }
+
+    public void evictAllLocal() {
+        local.invalidateAll();
+    }
+
+    private V load(String key, Supplier<V> loader) {
+        String redisKey = redisKey(key);
+        try {
+            Object cached = redisTemplate.opsForValue().get(redisKey);
+            if (cached != null) {
+                // RedisTemplate trả về Map/List thuần, đổi lại đúng kiểu
+                return objectMapper.convertValue(cached, valueType);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Cannot read {} from redis: {}", redisKey, e.getMessage());
+        }
+        Long version = invalidationBus.currentVersion(name);
+        V value = loader.get();
+        if (value != null && version != null) {
+            try {
+                redisTemplate.execute((RedisCallback<Long>) connection -> connection.scriptingCommands()
+                        .eval(CONDITIONAL_SET, ReturnType.INTEGER, 3, setArgs(key, value, version)));
+            } catch (RuntimeException e) {
+                logger.warn("Cannot write {} to redis: {}", redisKey, e.getMessage());
+            }
+        }
+        return value;
+    }
+
+    private Map<String, V> loadAll(Set<? extends String> keys, Function<Set<String>, Map<String, V>> loader) {
+        List<String> orderedKeys = new ArrayList<>(keys);
+        Map<String, V> result = new HashMap<>();
+        try {
+            List<Object> cached = redisTemplate.opsForValue()
+                    .multiGet(orderedKeys.stream().map(this::redisKey).toList());
+            for (int i = 0; cached != null && i < orderedKeys.size(); i++) {
+                if (cached.get(i) != null) {
+                    result.put(orderedKeys.get(i), objectMapper.convertValue(cached.get(i), valueType));
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Cannot read {} keys of {} from redis: {}", orderedKeys.size(), name, e.getMessage());
+        }
+
+        Set<String> missing = new HashSet<>(orderedKeys);
+        missing.removeAll(result.keySet());
+        if (missing.isEmpty()) {
+            return result;
+        }
+        Long version = invalidationBus.currentVersion(name);
+        Map<String, V> loaded = loader.apply(missing);
+        result.putAll(loaded);
+        if (!loaded.isEmpty() && version != null) {
+            try {
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    loaded.forEach((key, value) -> connection.scriptingCommands()
+                            .eval(CONDITIONAL_SET, ReturnType.INTEGER, 3, setArgs(key, value, version)));
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                logger.warn("Cannot write {} keys of {} to redis: {}", loaded.size(), name, e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[][] setArgs(String key, V value, long version) {
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        return new byte[][]{
+                keySerializer.serialize(redisKey(key)),
+                keySerializer.serialize(CacheInvalidationBus.VERSIONS_KEY),
+                keySerializer.serialize(keysSetKey()),
+                bytes(name),
+                bytes(String.valueOf(version)),
+                valueSerializer.serialize(value),
+                bytes(String.valueOf(withJitter(redisTtl).toMillis())),
+                // thành viên set được đọc lại bằng value serializer khi evictAll
+                valueSerializer.serialize(redisKey(key)),
+                bytes(String.valueOf(keysSetTtlMillis))
+        };
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Duration withJitter(Duration ttl) {
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+        return Duration.ofMillis(Math.max(1, (long) (ttl.toMillis() * factor)));
+    }
+
+    String redisKey(String key) {
+        return "cache:" + name + ":" + key;
+    }
+
+    private String keysSetKey() {
+        return "cache:" + name + ":__keys";
+    }
+}
@@ -0,0 +1,62 @@
+package com.project.shopapp.components;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tạo và quản lý các TieredCache theo tên (namespace)
+@Component
+public class TieredCacheManager {
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final ObjectMapper objectMapper;
+    private final Duration localTtl;
+    private final Duration redisTtl;
+    private final double jitter;
+    private final long localMaxSize;
+    private final Map<String, TieredCache<?>> caches = new ConcurrentHashMap<>();
+
+    public TieredCacheManager(RedisTemplate<String, Object> redisTemplate,
+                              CacheInvalidationBus invalidationBus,
+                              @Value("${cache.tiered.local-ttl-seconds:30}") long localTtlSeconds,
+                              @Value("${cache.tiered.redis-ttl-seconds:600}") long redisTtlSeconds,
+                              @Value("${cache.tiered.jitter:0.1}") double jitter,
+                              @Value("${cache.tiered.local-max-size:1000}") long localMaxSize) {
+        this.redisTemplate = redisTemplate;
+        this.invalidationBus = invalidationBus;
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.localTtl = Duration.ofSeconds(localTtlSeconds);
+        this.redisTtl = Duration.ofSeconds(redisTtlSeconds);
+        this.jitter = jitter;
+        this.localMaxSize = localMaxSize;
+    }
+
+    public <V> TieredCache<V> create(String name, TypeReference<V> valueType) {
+        TieredCache<V> cache = new TieredCache<>(name, objectMapper.getTypeFactory().constructType(valueType),
+                redisTemplate, objectMapper, invalidationBus, localTtl, redisTtl, jitter, localMaxSize);
+        if (caches.putIfAbsent(name, cache) != null) {
+            throw new IllegalStateException("Duplicate cache name: " + name);
+        }
+        invalidationBus.register(name, cache::evictLocal, cache::evictAllLocal);
+        return cache;
+    }
+
+    public TieredCache<?> getCache(String name) {
+        return caches.get(name);
+    }
+
+    public Collection<TieredCache<?>> getCaches() {
+        return caches.values();
+    }
+}
@@ -0,0 +1,132 @@
+package com.project.shopapp.components;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.shopapp.models.Token;
+import com.project.shopapp.repositories.TokenRepository;
+import com.project.shopapp.utils.TokenHashUtils;
+import com.project.shopapp.utils.TransactionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the tokens table so that authenticated requests do not
+ * query MySQL. The index is rebuilt from the database every
+ * {@code jwt.revocation-refresh-ms}, which bounds how long a revocation made
+ * on another node can go unnoticed here. Tokens unknown to the index fall
+ * back to a single database lookup and are then cached, including tokens
+ * the database does not know either.
+ * <p>
+ * Local changes are applied after the surrounding transaction commits, so a
+ * rollback never leaves the index ahead of the table. Revocations made while
+ * a rebuild is reading the table are merged into the new snapshot before it
+ * is published, so no reader ever sees a snapshot without them.
+ */
+@Component
+public class TokenRevocationIndex {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationIndex.class);
+    private final TokenRepository tokenRepository;
+
+    private volatile Set<String> activeTokens = ConcurrentHashMap.newKeySet();
+    private volatile Set<String> revokedTokens = ConcurrentHashMap.newKeySet();
+    // hash -> thời điểm (nanoTime) thu hồi trên node này, để gộp vào snapshot đang dựng
+    private final Map<String, Long> recentRevocations = new ConcurrentHashMap<>();
+    private final Object snapshotLock = new Object();
+    // token không có trong DB (slot đã bị ghi đè, token đã xóa), không query lại mỗi request
+    private final Cache<String, Boolean> unknownTokens;
+
+    public TokenRevocationIndex(TokenRepository tokenRepository,
+                                @Value("${jwt.expiration}") long expirationSeconds) {
+        this.tokenRepository = tokenRepository;
+        this.unknownTokens = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofSeconds(expirationSeconds))
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation-refresh-ms:30000}")
+    public void refresh() {
+        long startedAt = System.nanoTime();
+        Set<String> active = ConcurrentHashMap.newKeySet();
+        Set<String> revoked = ConcurrentHashMap.newKeySet();
+        List<Object[]> rows = tokenRepository.findUnexpiredTokens(LocalDateTime.now());
+        for (Object[] row : rows) {
+            String hash = HexFormat.of().formatHex((byte[]) row[0]);
+            if ((Boolean) row[1]) {
+                revoked.add(hash);
+            } else {
+                active.add(hash);
+            }
+        }
+        // gộp trước khi công bố snapshot: reader không bao giờ thấy snapshot thiếu các thu hồi này.
+        // Giữ khóa đến sau khi đổi snapshot để revoke() chạy song song không ghi vào bộ cũ rồi bị mất
+        synchronized (snapshotLock) {
+            // thu hồi commit trước startedAt đã nằm trong kết quả query, các thu hồi sau đó phải áp lại
+            recentRevocations.forEach((hash, revokedAt) -> {
+                if (revokedAt - startedAt >= 0) {
+                    active.remove(hash);
+                    revoked.add(hash);
+                } else {
+                    recentRevocations.remove(hash, revokedAt);
+                }
+            });
+            revokedTokens = revoked;
+            activeTokens = active;
+        }
+        logger.debug("Token index refreshed: {} active, {} revoked", active.size(), revoked.size());
+    }
+
+    public boolean isActive(String token) {
+        byte[] digest = TokenHashUtils.sha256(token);
+        String hash = HexFormat.of().formatHex(digest);
+        if (revokedTokens.contains(hash)) {
+            return false;
+        }
+        if (activeTokens.contains(hash)) {
+            return true;
+        }
+        if (unknownTokens.getIfPresent(hash) != null) {
+            return false;
+        }
+        // token do node khác cấp sau lần refresh gần nhất
+        Token existingToken = tokenRepository.findByTokenHash(digest);
+        if (existingToken == null) {
+            unknownTokens.put(hash, Boolean.TRUE);
+            return false;
+        }
+        if (existingToken.isRevoked()) {
+            revokedTokens.add(hash);
+            return false;
+        }
+        activeTokens.add(hash);
+        return true;
+    }
+
+    // Áp dụng sau khi transaction hiện tại commit, không có transaction thì áp dụng ngay
+    public void register(String token) {
+        String hash = TokenHashUtils.sha256Hex(token);
+        TransactionUtils.afterCommit(() -> activeTokens.add(hash));
+    }
+
+    public void revoke(String token) {
+        String hash = TokenHashUtils.sha256Hex(token);
+        TransactionUtils.afterCommit(() -> {
+            synchronized (snapshotLock) {
+                recentRevocations.put(hash, System.nanoTime());
+                activeTokens.remove(hash);
+                revokedTokens.add(hash);
+            }
+        });
+    }
+}
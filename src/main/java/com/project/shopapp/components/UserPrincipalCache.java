@@ -0,0 +1,107 @@
+package com.project.shopapp.components;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.project.shopapp.models.User;
+import com.project.shopapp.repositories.UserRepository;
+import com.project.shopapp.utils.TransactionUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, TTL-based cache of the authenticated principal, keyed by user id
+ * with a phone number -> id secondary index. Entries are evicted by every
+ * write in UserService so role changes and locks apply on the next request,
+ * on every node through CacheInvalidationBus.
+ */
+@Component
+public class UserPrincipalCache {
+    public static final String NAMESPACE = "user-principal";
+    private final UserRepository userRepository;
+    private final CacheInvalidationBus invalidationBus;
+    private final Cache<Long, User> usersById;
+    private final Cache<String, Long> userIdsByPhoneNumber;
+
+    public UserPrincipalCache(UserRepository userRepository,
+                              CacheInvalidationBus invalidationBus,
+                              @Value("${security.principal-cache.ttl-seconds:300}") long ttlSeconds,
+                              @Value("${security.principal-cache.max-size:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.invalidationBus = invalidationBus;
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.userIdsByPhoneNumber = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        // node khác sửa user => chỉ xóa bản local
+        invalidationBus.register(NAMESPACE,
+                key -> usersById.invalidate(Long.valueOf(key)),
+                () -> {
+                    usersById.invalidateAll();
+                    userIdsByPhoneNumber.invalidateAll();
+                });
+    }
+
+    public User getById(Long userId) throws UsernameNotFoundException {
+        User user = usersById.get(userId, id -> userRepository.findById(id).orElse(null));
+        if (user == null) {
+            throw new UsernameNotFoundException("Cannot find user with id = " + userId);
+        }
+        userIdsByPhoneNumber.put(user.getPhoneNumber(), user.getId());
+        return user;
+    }
+
+    public User getByPhoneNumber(String phoneNumber) throws UsernameNotFoundException {
+        Long userId = userIdsByPhoneNumber.getIfPresent(phoneNumber);
+        if (userId != null) {
+            User user = usersById.getIfPresent(userId);
+            // số điện thoại có thể đã đổi, khi đó coi như miss
+            if (user != null && phoneNumber.equals(user.getPhoneNumber())) {
+                return user;
+            }
+        }
+        User user = userRepository.findByPhoneNumber(phoneNumber)
+                .orElseThrow(() ->
+                        new UsernameNotFoundException(
+                                "Cannot find user with phone number = " + phoneNumber));
+        usersById.put(user.getId(), user);
+        userIdsByPhoneNumber.put(phoneNumber, user.getId());
+        return user;
+    }
+
+    public void put(User user) {
+        usersById.put(user.getId(), user);
+        userIdsByPhoneNumber.put(user.getPhoneNumber(), user.getId());
+    }
+
+    // Xóa ngay và xóa lại sau khi commit để request chen giữa không nạp lại dữ liệu cũ,
+    // sau commit báo cho các node khác
+    public void evict(Long userId) {
+        usersById.invalidate(userId);
+        TransactionUtils.afterCommit(() -> {
+            usersById.invalidate(userId);
+            invalidationBus.publish(NAMESPACE, String.valueOf(userId));
+        });
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = usersById.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hit_count", stats.hitCount());
+        result.put("miss_count", stats.missCount());
+        result.put("hit_rate", stats.hitRate());
+        result.put("eviction_count", stats.evictionCount());
+        result.put("size", usersById.estimatedSize());
+        return result;
+    }
+}
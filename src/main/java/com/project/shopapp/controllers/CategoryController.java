@@ -9,16 +9,21 @@ import com.project.shopapp.responses.Categories.CategoryResponse;
 import com.project.shopapp.responses.Categories.UpdateCategoryResponse;
 import com.project.shopapp.services.Category.CategoryService;
 import com.project.shopapp.utils.MessageKeys;
+import com.project.shopapp.utils.WebUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.MessageSource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.LocaleResolver;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -32,6 +37,9 @@ public class CategoryController {
     private final CategoryRepository categoryRepository;
     private final LocalizationUtils localizationUtils;
 
+    // Category hiếm khi đổi: cho cache 5 phút, sau đó hỏi lại bằng ETag
+    private static final CacheControl CATEGORIES_CACHE_CONTROL = CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic();
+
     @PostMapping("")
     @Transactional
     public ResponseEntity<CategoryResponse> createCategory(
@@ -60,10 +68,19 @@ public class CategoryController {
     @GetMapping("")
     public ResponseEntity<List<Category>> getAllCategories(
             @RequestParam("page")     int page,
-            @RequestParam("limit")    int limit
+            @RequestParam("limit")    int limit,
+            WebRequest webRequest
     ) {
+        // ETag theo version danh sách category => client nhận 304 khi không có gì đổi
+        Long version = categoryService.getCategoriesVersion();
+        String etag = version != null ? WebUtils.etag("categories", version) : null;
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag).cacheControl(CATEGORIES_CACHE_CONTROL).build();
+        }
         List<Category> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(categories);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(CATEGORIES_CACHE_CONTROL);
+        return (etag != null ? builder.eTag(etag) : builder).body(categories);
     }
 
     @PutMapping("/{id}")
@@ -6,6 +6,7 @@ import com.project.shopapp.filters.AuthJwtToken;
 import com.project.shopapp.models.Order;
 import com.project.shopapp.models.User;
 import com.project.shopapp.repositories.OrderRepository;
+import com.project.shopapp.responses.CursorPage;
 import com.project.shopapp.responses.Order.OrderListResponse;
 import com.project.shopapp.responses.Order.OrderResponse;
 import com.project.shopapp.responses.User.UserResponse;
@@ -96,9 +97,25 @@ public class OrderController {
             @RequestParam(defaultValue = "", required = false) String keyword,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false", name = "include_total") boolean includeTotal,
             @RequestHeader("Authorization") String authHeader) {
         try {
             String token = AuthJwtToken.extractToken(authHeader);
+            if (after != null) {
+                CursorPage<OrderResponse> cursorPage = orderService
+                        .getUserOrdersAfter(userId, keyword, after, limit)
+                        .map(OrderResponse::fromOrder);
+                Long total = includeTotal ? orderService.countUserOrders(userId, keyword) : null;
+                return ResponseEntity.ok()
+                        .header(HttpHeaders.AUTHORIZATION, token)
+                        .body(OrderListResponse.builder()
+                                .orders(cursorPage.getItems())
+                                .nextCursor(cursorPage.getNextCursor())
+                                .totalElements(total)
+                                .totalPages(total != null ? (int) Math.ceil((double) total / Math.max(limit, 1)) : 0)
+                                .build());
+            }
             PageRequest pageRequest = PageRequest.of(page, limit, Sort.by("orderDate").descending());
             Page<Order> orderPage = orderService.getUserOrders(userId, keyword, pageRequest);
             Page<OrderResponse> orderResponsePage = orderPage.map(OrderResponse::fromOrder);
@@ -169,10 +186,27 @@ public class OrderController {
     public ResponseEntity<OrderListResponse> getOrdersByKeyword(
             @RequestParam(defaultValue = "", required = false) String keyword,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int limit
-
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false", name = "include_total") boolean includeTotal
     ) {
-
+        if (after != null) {
+            // Chế độ cursor: seek theo id, không chạy COUNT trừ khi include_total=true
+            try {
+                CursorPage<OrderResponse> cursorPage = orderService
+                        .getOrdersByKeywordAfter(keyword, after, limit)
+                        .map(OrderResponse::fromOrder);
+                Long total = includeTotal ? orderService.countOrdersByKeyword(keyword) : null;
+                return ResponseEntity.ok(OrderListResponse.builder()
+                        .orders(cursorPage.getItems())
+                        .nextCursor(cursorPage.getNextCursor())
+                        .totalElements(total)
+                        .totalPages(total != null ? (int) Math.ceil((double) total / Math.max(limit, 1)) : 0)
+                        .build());
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
 
         // Tạo Pageable từ thông tin trang và giới hạn
         PageRequest pageRequest = PageRequest.of(
@@ -1,40 +1,49 @@
 package com.project.shopapp.controllers;
 
-import com.github.javafaker.Faker;
+import com.project.shopapp.components.ImageFileServer;
 import com.project.shopapp.components.LocalizationUtils;
 import com.project.shopapp.dtos.*;
 import com.project.shopapp.models.Category;
 import com.project.shopapp.models.Product;
 import com.project.shopapp.models.ProductImage;
+import com.project.shopapp.responses.CursorPage;
 import com.project.shopapp.responses.Product.ProductListResponse;
 import com.project.shopapp.responses.Product.ProductResponse;
 import com.project.shopapp.services.Category.CategoryService;
+import com.project.shopapp.services.Image.IImageDeletionService;
+import com.project.shopapp.services.Image.IImageStorageService;
+import com.project.shopapp.services.Image.IImageVariantService;
+import com.project.shopapp.services.Product.IProductImportService;
 import com.project.shopapp.services.Product.IProductService;
+import com.project.shopapp.services.Search.IProductSearchService;
 import com.project.shopapp.utils.MessageKeys;
+import com.project.shopapp.utils.WebUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.UrlResource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import jakarta.validation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.text.NumberFormat;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("${api.prefix}/products")
@@ -42,8 +51,18 @@ import java.util.*;
 public class ProductController {
     private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
     private final IProductService productService;
+    private final IProductImportService productImportService;
     private final LocalizationUtils localizationUtils;
     private final CategoryService categoryService;
+    private final IProductSearchService productSearchService;
+    private final ImageFileServer imageFileServer;
+    private final IImageVariantService imageVariantService;
+    private final IImageStorageService imageStorageService;
+    private final IImageDeletionService imageDeletionService;
+
+    // Catalog: client luôn hỏi lại server, thường chỉ nhận 304 rỗng
+    private static final CacheControl CATALOG_CACHE_CONTROL = CacheControl.noCache().cachePublic();
+    private static final CacheControl FEATURED_CACHE_CONTROL = CacheControl.maxAge(Duration.ofSeconds(60)).cachePublic();
 
     @PostMapping("")
     @Transactional
@@ -69,13 +88,80 @@ public class ProductController {
     }
 
 
+    // Admin: import hàng loạt từ body CSV (có header) hoặc NDJSON, đọc stream không buffer cả file
+    @PostMapping("/import")
+    public ResponseEntity<?> importProducts(
+            @RequestParam(required = false) String format,
+            HttpServletRequest request
+    ) {
+        String type = format != null ? format : String.valueOf(request.getContentType());
+        type = type.toLowerCase(Locale.ROOT);
+        IProductImportService.Format importFormat;
+        if (type.contains("csv")) {
+            importFormat = IProductImportService.Format.CSV;
+        } else if (type.contains("ndjson") || type.contains("jsonl") || type.contains("json-seq")) {
+            importFormat = IProductImportService.Format.NDJSON;
+        } else {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                    .body("Use text/csv or application/x-ndjson, or pass ?format=csv|ndjson");
+        }
+        try {
+            return ResponseEntity.ok(productImportService.importProducts(request.getInputStream(), importFormat));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // ETag đổi khi catalog đổi (version node này đã áp dụng, xem getCatalogVersion) hoặc khi tham số đổi => 304 không cần query DB
+    private String catalogEtag(Object... parts) {
+        String catalogVersion = productService.getCatalogVersion();
+        if (catalogVersion == null) {
+            return null;
+        }
+        Object[] values = Arrays.copyOf(parts, parts.length + 1);
+        values[parts.length] = catalogVersion;
+        return WebUtils.etag(values);
+    }
+
+    private static ResponseEntity.BodyBuilder okWithValidators(String etag, CacheControl cacheControl) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().cacheControl(cacheControl);
+        return etag != null ? builder.eTag(etag) : builder;
+    }
+
+    private static <T> ResponseEntity<T> notModified(String etag, CacheControl cacheControl) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+    }
+
     @GetMapping("")
     public ResponseEntity<ProductListResponse> getProducts(
             @RequestParam(defaultValue = "") String keyword,
             @RequestParam(defaultValue = "0", name = "category_id") Long categoryId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int limit
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false", name = "include_total") boolean includeTotal,
+            WebRequest webRequest
     ) {
+        String etag = catalogEtag("products", keyword, categoryId, page, limit, after, includeTotal);
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return notModified(etag, CATALOG_CACHE_CONTROL);
+        }
+        if (after != null) {
+            // Chế độ cursor: ?after= (rỗng ở trang đầu), không chạy COUNT trừ khi include_total=true
+            try {
+                CursorPage<ProductResponse> cursorPage =
+                        productService.getProductsAfter(keyword, categoryId, after, limit);
+                Long total = includeTotal ? productService.countProducts(keyword, categoryId) : null;
+                return okWithValidators(etag, CATALOG_CACHE_CONTROL).body(ProductListResponse.builder()
+                        .products(cursorPage.getItems())
+                        .nextCursor(cursorPage.getNextCursor())
+                        .totalElements(total)
+                        .totalPages(total != null ? (int) Math.ceil((double) total / Math.max(limit, 1)) : 0)
+                        .build());
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
 
         PageRequest pageRequest = PageRequest.of(
                 page, limit,
@@ -90,17 +176,31 @@ public class ProductController {
                 .products(products)
                 .totalPages(totalPages)
                 .build();
-        return ResponseEntity.ok(response);
+        return okWithValidators(etag, CATALOG_CACHE_CONTROL).body(response);
     }
 
     //http://localhost:8088/api/v1/products/6
     @GetMapping("/{id}")
     public ResponseEntity<?> getProductById(
-            @PathVariable("id") Long productId
+            @PathVariable("id") Long productId,
+            WebRequest webRequest
     ) {
         try {
+            // chỉ đọc updatedAt để so với If-None-Match / If-Modified-Since
+            Optional<LocalDateTime> updatedAt = productService.getProductUpdatedAt(productId);
+            String etag = null;
+            long lastModified = -1;
+            if (updatedAt.isPresent()) {
+                lastModified = updatedAt.get().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                etag = WebUtils.etag("product", productId, lastModified);
+                if (webRequest.checkNotModified(etag, lastModified)) {
+                    return notModified(etag, CATALOG_CACHE_CONTROL);
+                }
+            }
             Product existingProduct = productService.getProductById(productId);
-            return ResponseEntity.ok(ProductResponse.fromProduct(existingProduct));
+            return okWithValidators(etag, CATALOG_CACHE_CONTROL)
+                    .lastModified(lastModified)
+                    .body(ProductResponse.fromProduct(existingProduct));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -114,10 +214,13 @@ public class ProductController {
             // Tách chuỗi ids thành một mảng các số nguyên
             List<Long> productIds = new ArrayList<>();
             for (String idStr : ids.split(",")) {
-                productIds.add(Long.parseLong(idStr));
+                if (!idStr.isBlank()) {
+                    productIds.add(Long.parseLong(idStr.trim()));
+                }
             }
 
-            List<Product> products = productService.findProductsByIds(productIds);
+            // trả về theo đúng thứ tự ids, id trùng chỉ trả một lần
+            List<ProductResponse> products = productService.findProductsByIds(productIds);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -125,10 +228,67 @@ public class ProductController {
     }
 
     @GetMapping("/featured")
-    public ResponseEntity<?> getFeaturedProducts(@RequestParam(defaultValue = "8") int limit) {
+    public ResponseEntity<?> getFeaturedProducts(@RequestParam(defaultValue = "8") int limit,
+                                                 WebRequest webRequest) {
+        try {
+            String etag = catalogEtag("featured", limit);
+            if (etag != null && webRequest.checkNotModified(etag)) {
+                return notModified(etag, FEATURED_CACHE_CONTROL);
+            }
+            List<ProductResponse> featuredProducts = productService.getFeaturedProducts(limit);
+            return okWithValidators(etag, FEATURED_CACHE_CONTROL).body(featuredProducts);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Admin: build lại toàn bộ search index từ DB
+    @PostMapping("/search-index/rebuild")
+    public ResponseEntity<?> rebuildSearchIndex() {
         try {
-            List<Product> featuredProducts = productService.getFeaturedProducts(limit);
-            return ResponseEntity.ok(featuredProducts);
+            return ResponseEntity.ok(productSearchService.rebuild());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Admin: sinh lại variant cho mọi ảnh, trả jobId để theo dõi tiến độ
+    @PostMapping("/image-variants/rebuild")
+    public ResponseEntity<?> rebuildImageVariants() {
+        String jobId = imageVariantService.regenerateAll();
+        if (jobId == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Image variant queue is full");
+        }
+        return ResponseEntity.accepted().body(imageVariantService.getJob(jobId));
+    }
+
+    @GetMapping("/image-variants/jobs/{jobId}")
+    public ResponseEntity<?> getImageVariantJob(@PathVariable String jobId) {
+        Map<String, Object> job = imageVariantService.getJob(jobId);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+
+    // Admin: chuyển file upload dạng "<UUID>_<tên>" cũ sang kho content-addressed ở background, trả jobId
+    @PostMapping("/image-store/migrate")
+    public ResponseEntity<?> migrateImageStore() {
+        String jobId = imageStorageService.migrateLegacyFiles();
+        if (jobId == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Image store migration is already running");
+        }
+        return ResponseEntity.accepted().body(imageStorageService.getMigrationJob(jobId));
+    }
+
+    @GetMapping("/image-store/jobs/{jobId}")
+    public ResponseEntity<?> getImageStoreJob(@PathVariable String jobId) {
+        Map<String, Object> job = imageStorageService.getMigrationJob(jobId);
+        return job == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(job);
+    }
+
+    // Admin: đối chiếu thư mục upload với DB ngay, không chờ lịch chạy
+    @PostMapping("/image-store/sweep")
+    public ResponseEntity<?> sweepImageStore() {
+        try {
+            return ResponseEntity.ok(imageDeletionService.sweepOrphans());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -175,20 +335,19 @@ public class ProductController {
 
     @PostMapping(value = "uploads/{id}",
             consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    @Transactional
     //POST http://localhost:8088/v1/api/products
     public ResponseEntity<?> uploadImages(
             @PathVariable("id") Long productId,
             @ModelAttribute("files") List<MultipartFile> files
     ){
         try {
-            Product existingProduct = productService.getProductById(productId);
             files = files == null ? new ArrayList<MultipartFile>() : files;
             if(files.size() > ProductImage.MAXIMUM_IMAGES_PER_PRODUCT) {
                 return ResponseEntity.badRequest().body(localizationUtils
                         .getLocalizedMessage(MessageKeys.UPLOAD_IMAGES_MAX_5));
             }
-            List<ProductImage> productImages = new ArrayList<>();
+            // Kiểm tra hết các file trước khi ghi file nào ra đĩa
+            List<MultipartFile> acceptedFiles = new ArrayList<>();
             for (MultipartFile file : files) {
                 if(file.getSize() == 0) {
                     continue;
@@ -198,263 +357,66 @@ public class ProductController {
                     return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
                             .body(localizationUtils.getLocalizedMessage(MessageKeys.UPLOAD_IMAGES_FILE_LARGE));
                 }
-                String contentType = file.getContentType();
-                if(contentType == null || !contentType.startsWith("image/")) {
+                if(!isImageFile(file) || file.getOriginalFilename() == null) {
                     return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
                             .body(localizationUtils.getLocalizedMessage(MessageKeys.UPLOAD_IMAGES_FILE_MUST_BE_IMAGE));
                 }
-                // Lưu file và cập nhật thumbnail trong database
-                String filename = storeFile(file); // Thay đổi từ storeFiles thành storeFile
-                //lưu vào đối tượng product trong DB
-                ProductImage productImage = productService.createProductImage(
-                        existingProduct.getId(),
-                        ProductImageDTO.builder()
-                                .imageUrl(filename)
-                                .productId(existingProduct.getId())
-                                .build()
-                );
-                productImages.add(productImage);
+                acceptedFiles.add(file);
             }
+            // Ghi file song song khi chưa mở transaction => không giữ connection DB trong lúc I/O.
+            // Lưu theo SHA-256 nội dung: ảnh trùng chỉ lưu một lần, tên trả về là "<hash>.<ext>"
+            List<String> imageNames = imageStorageService.storeAll(acceptedFiles);
+            List<ProductImage> productImages;
+            try {
+                productImages = productService.createProductImages(productId, imageNames);
+            } catch (Exception e) {
+                // transaction đã rollback => file vừa ghi không còn row nào trỏ tới
+                imageStorageService.releaseAll(imageNames);
+                throw e;
+            }
+            // file dedup có thể vừa bị xóa trước khi row commit => ghi lại từ request
+            imageStorageService.ensureStored(acceptedFiles, imageNames);
+            // sinh thumbnail/card/detail ở background, không giữ request
+            imageVariantService.generate(imageNames);
             return ResponseEntity.ok().body(productImages);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
-    private String storeFile(MultipartFile file) throws IOException {
-        if (!isImageFile(file) || file.getOriginalFilename() == null) {
-            throw new IOException("Invalid image format");
-        }
-        String filename = StringUtils.cleanPath(file.getOriginalFilename());
-        // Thêm UUID vào trước tên file để tránh trùng lặp
-        String uniqueFilename = UUID.randomUUID().toString() + "_" + filename;
-        // Đường dẫn đến thư mục mà bạn muốn lưu file
-        java.nio.file.Path uploadDir = Paths.get("uploads");
-        // Kiểm tra và tạo thư mục nếu không tồn tại
-        if (!Files.exists(uploadDir)) {
-            Files.createDirectories(uploadDir);
-        }
-        // Đường dẫn đầy đủ đến file
-        java.nio.file.Path destination = Paths.get(uploadDir.toString(), uniqueFilename);
-        // Sao chép file vào thư mục đích
-        Files.copy(file.getInputStream(), destination, StandardCopyOption.REPLACE_EXISTING);
-        return uniqueFilename;
-    }
-
     private boolean isImageFile(MultipartFile file) {
         String contentType = file.getContentType();
         return contentType != null && contentType.startsWith("image/");
     }
 
     @GetMapping("/images/{imageName}")
-    public ResponseEntity<?> viewImage(@PathVariable String imageName) {
-        try {
-            java.nio.file.Path imagePath = Paths.get("uploads/" + imageName);
-            UrlResource resource = new UrlResource(imagePath.toUri());
-
-            if (resource.exists()) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.IMAGE_JPEG)
-                        .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build();
-        }
+    public void viewImage(@PathVariable String imageName,
+                          @RequestParam(required = false) Integer w,
+                          @RequestParam(required = false) String variant,
+                          HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        // ?w= hoặc ?variant= chọn bản sinh sẵn gần nhất, chưa có thì trả ảnh gốc
+        IImageVariantService.Selection selection = imageVariantService.select(imageName, w, variant);
+        // Range/206, ETag/304, Cache-Control và sendfile do ImageFileServer xử lý
+        imageFileServer.serve(selection.path(), selection.immutable(), request, response);
     }
 
     @GetMapping("/featured/best")
-    public ResponseEntity<?> getBestFeaturedProduct() {
+    public ResponseEntity<?> getBestFeaturedProduct(WebRequest webRequest) {
         try {
-            Product product = productService.getFeaturedProduct();
+            String etag = catalogEtag("featured-best");
+            if (etag != null && webRequest.checkNotModified(etag)) {
+                return notModified(etag, FEATURED_CACHE_CONTROL);
+            }
+            ProductResponse product = productService.getFeaturedProduct();
             if (product == null) {
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(product);
+            return okWithValidators(etag, FEATURED_CACHE_CONTROL).body(product);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
-
-    // fake date
-//    @PostMapping("/generate-fake")
-//    @Transactional
-//    public ResponseEntity<?> generateFakeProducts(@RequestParam(defaultValue = "") int count) {
-//        try {
-//            Faker faker = new Faker(new Locale("vi"));
-//            Random random = new Random();
-//            List<Product> createdProducts = new ArrayList<>();
-//            NumberFormat vnFormat = NumberFormat.getInstance(new Locale("vi", "VN"));
-//
-//            // Dùng tên file ảnh thực tế đã upload (UUID_prefix)
-//            Map<String, List<String>> imageMap = Map.of(
-//                    "điện thoại", List.of(
-//                            "d8f6ac61-9fc9-48f6-a428-ec83263f553e_iphone-16-pro-max-titan-sa-mac-1-638638962337813406-750x500.jpg"
-//                    ),
-//                    "máy tính", List.of(
-//                            "1b524892-8450-4557-a2b3-ae702a3d4c8e_macbook-air-13-inch-m4-11-638769622719537641-750x500.jpg"
-//
-//                    ),
-//                    "màn hình", List.of(
-//                            "18964e46-1f3c-4743-8111-4dc22faad8ef_663a91e5-f169-4a3e-9d3f-152ec5ec6f12_asus-lcd-proart-pa247cv-238-inch-full-hd-1-750x500.jpg"
-//                    ),
-//                    "smartwatch", List.of(
-//                            "b886dac5-1f7e-4417-b561-9088f051ac90_apple-watch-s10-day-milan-nau-1-638646969639246948-750x500.jpg"
-//                    ),
-//                    "phụ kiện", List.of(
-//                            "be85d72c-52a7-4d21-a4c6-9afe34dbe7fd_chuot-khong-day-logitech-silent-signature-m650-size-m-den-4-638620837131032134-750x500.jpg"
-//                    ),
-//                    "âm thanh", List.of(
-//                            "4150487f-7c27-41c5-bc5d-a61f945e1ad3_loa-bluetooth-harman-kardon-soundsticks-4-1-750x500.jpg"
-//                    ),
-//                    "đồng hồ", List.of(
-//                            "b886dac5-1f7e-4417-b561-9088f051ac90_apple-watch-s10-day-milan-nau-1-638646969639246948-750x500.jpg"
-//                    )
-//            );
-//
-//
-//            // Map mô tả chi tiết sản phẩm cho từng category
-//            Map<String, List<String>> descriptionMap = Map.of(
-//                    "điện thoại", List.of(
-//                            "Điện thoại thông minh với màn hình sắc nét và hiệu suất mạnh mẽ. Hỗ trợ 5G và tối ưu cho mọi tác vụ.",
-//                            "Máy điện thoại cao cấp với camera tuyệt vời và pin dài, thiết kế sang trọng và màn hình OLED.",
-//                            "Sản phẩm điện thoại được trang bị vi xử lý mạnh mẽ, thiết kế mỏng nhẹ, dễ dàng sử dụng cho mọi nhu cầu."
-//                    ),
-//                    "máy tính", List.of(
-//                            "Máy tính xách tay với cấu hình mạnh mẽ, thiết kế siêu mỏng, dễ dàng mang theo. Phù hợp cho công việc và giải trí.",
-//                            "Máy tính với màn hình sắc nét, vi xử lý hiện đại, cung cấp hiệu suất tối đa cho các tác vụ đồ họa và lập trình.",
-//                            "Máy tính mạnh mẽ với dung lượng bộ nhớ lớn, màn hình chống chói, đảm bảo công việc không bị gián đoạn."
-//                    ),
-//                    "màn hình", List.of(
-//                            "Màn hình chất lượng cao với độ phân giải tuyệt vời, màu sắc trung thực và thời gian phản hồi nhanh.",
-//                            "Màn hình 4K sắc nét với tần số quét cao, hoàn hảo cho cả làm việc và giải trí chơi game.",
-//                            "Màn hình rộng với khả năng hiển thị màu sắc chính xác, lý tưởng cho công việc đồ họa chuyên nghiệp."
-//                    ),
-//                    "smartwatch", List.of(
-//                            "Đồng hồ thông minh với các tính năng theo dõi sức khỏe và thể dục, màn hình sắc nét và khả năng kết nối tốt.",
-//                            "Đồng hồ thông minh đa chức năng với màn hình cảm ứng, theo dõi nhịp tim, và nhiều ứng dụng hỗ trợ.",
-//                            "Đồng hồ thông minh thời trang với các tính năng theo dõi sức khỏe, kết nối Bluetooth và thiết kế tiện dụng."
-//                    ),
-//                    "phụ kiện", List.of(
-//                            "Phụ kiện tiện ích hỗ trợ thiết bị điện tử của bạn, từ sạc nhanh đến các bộ chuyển đổi thông minh.",
-//                            "Các loại phụ kiện thiết kế thông minh, hỗ trợ tăng cường hiệu suất cho các thiết bị điện tử.",
-//                            "Phụ kiện cao cấp với chất liệu bền bỉ, phù hợp với các thiết bị công nghệ hiện đại."
-//                    ),
-//                    "âm thanh", List.of(
-//                            "Loa Bluetooth với âm thanh sống động, dễ dàng kết nối và di chuyển, phù hợp cho mọi không gian.",
-//                            "Tai nghe không dây với âm thanh chất lượng cao và khả năng chống ồn hiệu quả.",
-//                            "Hệ thống âm thanh đa dạng, cho âm thanh rõ ràng và mạnh mẽ, lý tưởng cho giải trí và làm việc."
-//                    ),
-//                    "đồng hồ", List.of(
-//                            "Đồng hồ cổ điển với thiết kế sang trọng, phù hợp cho các sự kiện đặc biệt.",
-//                            "Đồng hồ thể thao mạnh mẽ, với khả năng chống nước và đo nhịp tim chính xác.",
-//                            "Đồng hồ thời trang với mặt kính chịu lực, dễ dàng kết hợp với mọi trang phục."
-//                    )
-//            );
-//            List<Category> categories = categoryService.getAllCategories();
-//            if (categories.isEmpty()) {
-//                return ResponseEntity.badRequest().body("Không có category nào trong DB.");
-//            }
-//
-//
-//            for (int i = 0; i < count; i++) {
-//                Category category = categories.get(random.nextInt(categories.size()));
-//                String categoryKey = category.getName().toLowerCase().trim();
-//                // Lấy mô tả dựa trên categoryKey (phải ở trong vòng lặp)
-//                List<String> categoryDescriptions = descriptionMap.getOrDefault(categoryKey,
-//                        List.of("Sản phẩm " + faker.number().digits(4) + " với nhiều tính năng nổi bật."));
-//
-//                // Lấy một mô tả ngẫu nhiên cho sản phẩm
-//                String productDescription = categoryDescriptions.get(random.nextInt(categoryDescriptions.size()));
-//
-//                // Thêm thông tin bổ sung từ Faker
-//                productDescription += " Thêm vào đó, sản phẩm này có các tính năng như " +
-//                        faker.commerce().productName() + ", " + faker.commerce().color() + " sắc nét và dễ sử dụng.";
-//
-//                List<String> images = imageMap.getOrDefault(categoryKey, List.of("default.jpg"));
-//
-//                String name = generateProductName(categoryKey, faker, random);
-//                long rawPrice = faker.number().numberBetween(1_000_000, 50_000_000);
-//                String formattedPrice = vnFormat.format(rawPrice);
-//                String thumbnail = images.get(random.nextInt(images.size()));
-//
-//
-//                // Tạo product DTO
-//                ProductDTO dto = ProductDTO.builder()
-//                        .name(name)
-//                        .price((float) rawPrice)
-//                        .description(productDescription)
-//                        .thumbnail(thumbnail)
-//                        .quantity(faker.number().numberBetween(10, 200))
-//                        .stock_quantity(faker.number().numberBetween(10, 500))
-//                        .categoryId(category.getId())
-//                        .build();
-//
-//                // Tạo product
-//                Product product = productService.createProduct(dto);
-//
-//                // Thêm 3–5 ảnh chi tiết
-//                int imageCount = random.nextInt(3) + 3; // từ 3 -> 5 ảnh
-//                for (int j = 0; j < imageCount; j++) {
-//                    String imageFile = images.get(j % images.size());
-//                    ProductImageDTO imageDTO = ProductImageDTO.builder()
-//                            .productId(product.getId())
-//                            .imageUrl(imageFile)
-//                            .build();
-//                    productService.createProductImage(product.getId(), imageDTO);
-//                }
-//
-//                createdProducts.add(product);
-//
-//                if (i % 1000 == 0 && i != 0) {
-//                    System.out.println("Đã fake được: " + i + " sản phẩm...");
-//                }
-//            }
-//
-//            return ResponseEntity.ok("Đã tạo " + createdProducts.size() + " sản phẩm có ảnh thật, dữ liệu hợp lý.");
-//        } catch (Exception e) {
-//            return ResponseEntity.badRequest().body(" Lỗi: " + e.getMessage());
-//        }
-//    }
-//
-//    private String generateProductName(String category, Faker faker, Random rand) {
-//        switch (category) {
-//            case "điện thoại":
-//                return faker.options().option("iPhone", "Samsung Galaxy", "Xiaomi", "OPPO", "Realme") + " " +
-//                        faker.bothify("A##") + " " +
-//                        faker.options().option("5G", "Plus", "Pro", "Ultra", "Lite");
-//
-//            case "máy tính":
-//                return faker.options().option("MacBook Air", "Dell XPS", "Asus ROG", "HP Envy", "Lenovo Legion") + " " +
-//                        faker.options().option("M3", "Ryzen 7", "i7 12th Gen", "i5 13th Gen");
-//
-//            case "màn hình":
-//                return faker.options().option("Asus ProArt", "LG UltraGear", "Samsung Odyssey") + " " +
-//                        faker.number().numberBetween(24, 34) + " inch " +
-//                        faker.options().option("Full HD", "2K", "4K");
-//
-//            case "phụ kiện":
-//                return faker.options().option("Cáp Type-C", "Sạc nhanh PD", "Hub USB-C", "Adapter 65W") + " " +
-//                        faker.options().option("UGreen", "Anker", "Baseus");
-//
-//            case "smartwatch":
-//                return faker.options().option("Apple Watch", "Galaxy Watch", "Amazfit", "Huawei Watch") + " " +
-//                        faker.options().option("S10", "GT4", "Pro 2", "Active 3");
-//
-//            case "đồng hồ":
-//                return faker.options().option("Casio", "Orient", "Citizen", "Seiko", "DW") + " " +
-//                        faker.bothify("MTP-###L-7AVDF");
-//
-//            case "âm thanh":
-//                return faker.options().option("Sony WH", "AirPods Pro", "JBL Flip", "Harman Kardon") + " " +
-//                        faker.number().numberBetween(2, 5);
-//
-//            default:
-//                return "Sản phẩm " + faker.number().digits(4);
-//        }
-//    }
-
-
-
 }
@@ -1,13 +1,17 @@
 package com.project.shopapp.controllers;
 
 
+import com.project.shopapp.exceptions.ExpiredTokenException;
 import com.project.shopapp.models.Token;
 import com.project.shopapp.models.User;
+import com.project.shopapp.responses.CursorPage;
 import com.project.shopapp.responses.User.LoginResponse;
 import com.project.shopapp.responses.User.RegisterResponse;
+import com.project.shopapp.responses.User.UserListResponse;
 import com.project.shopapp.responses.User.UserResponse;
 import com.project.shopapp.services.Token.ITokenService;
 import com.project.shopapp.components.LocalizationUtils;
+import com.project.shopapp.components.UserPrincipalCache;
 import com.project.shopapp.services.User.UserService;
 import com.project.shopapp.utils.MessageKeys;
 import jakarta.servlet.http.HttpServletRequest;
@@ -26,6 +30,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("${api.prefix}/users")
@@ -34,6 +40,7 @@ public class UserController {
     private final UserService userService;
     private final LocalizationUtils localizationUtils;
     private final ITokenService tokenService;
+    private final UserPrincipalCache userPrincipalCache;
 
     @PostMapping("/register")
     @Transactional
@@ -85,16 +92,25 @@ public class UserController {
 
             User userDetail = userService.getUserDetailsFromToken(token);
             Token jwtToken = tokenService.addToken(userDetail, token);
+            String refreshToken = tokenService.issueRefreshToken(jwtToken);
 
             // Trả về token trong response
             return ResponseEntity.ok(LoginResponse.builder()
                     .message(localizationUtils.getLocalizedMessage(MessageKeys.LOGIN_SUCCESSFULLY))
                     .token(jwtToken.getToken())
+                    .refreshToken(refreshToken)
                     .tokenType(jwtToken.getTokenType())
                     .username(userDetail.getUsername())
                     .roles(userDetail.getAuthorities().stream().map(item -> item.getAuthority()).toList())
                     .id(userDetail.getId())
                     .build());
+        } catch (RejectedExecutionException e) {
+            // hàng đợi BCrypt đã đầy
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                    LoginResponse.builder()
+                            .message(localizationUtils.getLocalizedMessage(MessageKeys.LOGIN_SERVER_BUSY))
+                            .build()
+            );
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(
                     LoginResponse.builder()
@@ -106,6 +122,34 @@ public class UserController {
     }
 
 
+    // Đổi refresh token lấy access token mới, không cần mật khẩu
+    @PostMapping("/refresh")
+    @Transactional(noRollbackFor = ExpiredTokenException.class)
+    public ResponseEntity<LoginResponse> refreshToken(
+            @Valid @RequestBody RefreshTokenDTO refreshTokenDTO
+    ) {
+        try {
+            Token jwtToken = tokenService.refreshToken(refreshTokenDTO.getRefreshToken());
+            String refreshToken = tokenService.issueRefreshToken(jwtToken);
+            User userDetail = jwtToken.getUser();
+            return ResponseEntity.ok(LoginResponse.builder()
+                    .message(localizationUtils.getLocalizedMessage(MessageKeys.LOGIN_SUCCESSFULLY))
+                    .token(jwtToken.getToken())
+                    .refreshToken(refreshToken)
+                    .tokenType(jwtToken.getTokenType())
+                    .username(userDetail.getUsername())
+                    .roles(userDetail.getAuthorities().stream().map(item -> item.getAuthority()).toList())
+                    .id(userDetail.getId())
+                    .build());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(
+                    LoginResponse.builder()
+                            .message(e.getMessage())
+                            .build()
+            );
+        }
+    }
+
     //get user detail from token
     @PostMapping("/details")
     public ResponseEntity<UserResponse> getUserDetails(
@@ -142,14 +186,42 @@ public class UserController {
         }
     }
 
+    // Đăng xuất khỏi mọi thiết bị
+    @PostMapping("/logout-all")
+    public ResponseEntity<String> logoutAllSessions(
+            @RequestHeader("Authorization") String authorizationHeader
+    ) {
+        try {
+            String extractedToken = authorizationHeader.substring(7);
+            User user = userService.getUserDetailsFromToken(extractedToken);
+            userService.logoutAllSessions(user.getId());
+            return ResponseEntity.ok("Logged out from all sessions");
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     // Admin endpoints
     @GetMapping("")
-    public ResponseEntity<Page<UserResponse>> getAllUsers(
+    public ResponseEntity<?> getAllUsers(
             @RequestParam(defaultValue = "") String keyword,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int limit
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false", name = "include_total") boolean includeTotal
     ) {
         try {
+            if (after != null) {
+                // Chế độ cursor: seek theo id, không chạy COUNT trừ khi include_total=true
+                CursorPage<UserResponse> cursorPage = userService
+                        .getUsersAfter(keyword, after, limit)
+                        .map(UserResponse::fromUser);
+                return ResponseEntity.ok(UserListResponse.builder()
+                        .users(cursorPage.getItems())
+                        .nextCursor(cursorPage.getNextCursor())
+                        .totalElements(includeTotal ? userService.countUsers(keyword) : null)
+                        .build());
+            }
             Pageable pageable = PageRequest.of(page, limit);
             Page<User> users = userService.getAllUsers(keyword, pageable);
             Page<UserResponse> userResponses = users.map(UserResponse::fromUser);
@@ -159,6 +231,11 @@ public class UserController {
         }
     }
 
+    @GetMapping("/principal-cache/stats")
+    public ResponseEntity<Map<String, Object>> getPrincipalCacheStats() {
+        return ResponseEntity.ok(userPrincipalCache.stats());
+    }
+
     @DeleteMapping("/{userId}")
     @Transactional
     public ResponseEntity<String> deleteUser(@PathVariable Long userId) {
@@ -170,6 +247,20 @@ public class UserController {
         }
     }
 
+    @PutMapping("/active/{userId}")
+    @Transactional
+    public ResponseEntity<UserResponse> updateUserActive(
+            @PathVariable Long userId,
+            @RequestParam boolean active
+    ) {
+        try {
+            User updatedUser = userService.updateUserActive(userId, active);
+            return ResponseEntity.ok(UserResponse.fromUser(updatedUser));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PutMapping("/role/{userId}")
     @Transactional
     public ResponseEntity<UserResponse> updateUserRole(
@@ -0,0 +1,17 @@
+package com.project.shopapp.dtos;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import lombok.*;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+public class RefreshTokenDTO {
+    @JsonProperty("refresh_token")
+    @NotBlank(message = "Refresh token is required")
+    private String refreshToken;
+}
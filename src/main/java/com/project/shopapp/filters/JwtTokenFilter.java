@@ -1,7 +1,10 @@
 package com.project.shopapp.filters;
 
 import com.project.shopapp.components.JwtTokenUtils;
+import com.project.shopapp.components.RoutePolicyRegistry;
+import com.project.shopapp.components.UserPrincipalCache;
 import com.project.shopapp.models.User;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,28 +13,23 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.util.Pair;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.*;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 
 public class JwtTokenFilter extends OncePerRequestFilter{
-    @Value("${api.prefix}")
-    private String apiPrefix;
+    private final RoutePolicyRegistry routePolicyRegistry;
     private final UserDetailsService userDetailsService;
     private final JwtTokenUtils jwtTokenUtil;
+    private final UserPrincipalCache userPrincipalCache;
     private static final Logger log = LoggerFactory.getLogger(JwtTokenFilter.class);
 
     @Override
@@ -50,11 +48,17 @@ public class JwtTokenFilter extends OncePerRequestFilter{
                 return;
             }
             final String token = authHeader.substring(7);
-                final String phoneNumber = jwtTokenUtil.extractPhoneNumber(token);
+            // verify chữ ký một lần duy nhất cho mỗi request
+            final Claims claims = jwtTokenUtil.parseClaims(token);
+            final String phoneNumber = claims.getSubject();
             if (phoneNumber != null
                     && SecurityContextHolder.getContext().getAuthentication() == null) {
-                User userDetails = (User) userDetailsService.loadUserByUsername(phoneNumber);
-                if(jwtTokenUtil.validateToken(token, userDetails)) {
+                // userId có sẵn trong token nên tra cache theo id, không cần query DB
+                Number userId = claims.get("userId", Number.class);
+                User userDetails = userId != null
+                        ? userPrincipalCache.getById(userId.longValue())
+                        : (User) userDetailsService.loadUserByUsername(phoneNumber);
+                if(jwtTokenUtil.validateToken(token, claims, userDetails)) {
                     UsernamePasswordAuthenticationToken authenticationToken =
                             new UsernamePasswordAuthenticationToken(
                                     userDetails,
@@ -73,33 +77,6 @@ public class JwtTokenFilter extends OncePerRequestFilter{
 
     }
     private boolean isBypassToken(@NonNull HttpServletRequest request) {
-        final List<Pair<String, String>> bypassTokens = Arrays.asList(
-                Pair.of(String.format("%s/users/register", apiPrefix), "POST"),
-                Pair.of(String.format("%s/users/login", apiPrefix), "POST"),
-                Pair.of(String.format("%s/healthcheck/**", apiPrefix), "GET"),
-                Pair.of(String.format("%s/categories**", apiPrefix), "GET"),
-                Pair.of(String.format("%s/categories/**", apiPrefix), "GET"),
-                Pair.of(String.format("%s/products**", apiPrefix), "GET"),
-                Pair.of(String.format("%s/products/**", apiPrefix), "GET"),
-                Pair.of(String.format("%s/products/featured", apiPrefix), "GET"),
-                Pair.of(String.format("%s/products/images/*", apiPrefix), "GET"),
-                Pair.of(String.format("%s/banners/**", apiPrefix), "GET"),
-                Pair.of(String.format("%s/coupons/calculate", apiPrefix), "GET")
-        );
-
-        String requestPath = request.getServletPath();
-        String requestMethod = request.getMethod();
-
-        log.debug("isBypass? path={} method={} tokens={}", requestPath, requestMethod, bypassTokens);
-
-        AntPathMatcher matcher = new AntPathMatcher(); // so sánh khớp pattern
-        for (Pair<String, String> bypassToken : bypassTokens) {
-            if (matcher.match(bypassToken.getFirst(), requestPath)
-                    && requestMethod.equals(bypassToken.getSecond())) {
-                return true;
-            }
-        }
-
-        return false;
+        return routePolicyRegistry.isPublic(request.getMethod(), request.getServletPath());
     }
 }
@@ -0,0 +1,33 @@
+package com.project.shopapp.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Một file ảnh chờ xóa; row được ghi cùng transaction với việc xóa ProductImage/Product
+@Entity
+@Table(name = "image_deletions")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImageDeletion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "image_name", length = 300, nullable = false)
+    private String imageName;
+
+    // file được lưu lại (upload trùng nội dung) sau thời điểm này thì không xóa
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // lần thử tiếp theo, lùi dần sau mỗi lần lỗi
+    @Column(name = "not_before", nullable = false)
+    private LocalDateTime notBefore;
+
+    private int attempts;
+}
@@ -13,8 +13,11 @@ import lombok.*;
 @Builder
 @Data
 public class OrderDetail {
+    // IDENTITY buộc Hibernate INSERT từng dòng, pooled sequence (bảng order_details_seq trên MySQL)
+    // cấp sẵn 50 id nên saveAll được gửi thành JDBC batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_details_seq")
+    @SequenceGenerator(name = "order_details_seq", sequenceName = "order_details_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
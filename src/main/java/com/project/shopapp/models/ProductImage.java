@@ -18,7 +18,8 @@ import lombok.*;
 public class ProductImage {
     public static final int MAXIMUM_IMAGES_PER_PRODUCT = 6;
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_images_seq")
+    @SequenceGenerator(name = "product_images_seq", sequenceName = "product_images_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
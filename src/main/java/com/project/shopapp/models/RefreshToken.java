@@ -0,0 +1,34 @@
+package com.project.shopapp.models;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "refresh_tokens")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // phiên (dòng trong bảng tokens) mà refresh token này thuộc về
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "token_id", nullable = false)
+    private Token token;
+
+    // chỉ lưu SHA-256, không lưu refresh token thô
+    @Column(name = "token_hash", columnDefinition = "binary(32)", nullable = false, unique = true)
+    private byte[] tokenHash;
+
+    @Column(name = "expiration_date", nullable = false)
+    private LocalDateTime expirationDate;
+
+    // đã dùng để đổi token mới, dùng lại lần nữa => bị đánh cắp
+    private boolean used;
+}
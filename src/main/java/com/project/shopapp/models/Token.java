@@ -1,12 +1,14 @@
 package com.project.shopapp.models;
 
+import com.project.shopapp.utils.TokenHashUtils;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tokens")
+@Table(name = "tokens", uniqueConstraints =
+        @UniqueConstraint(name = "uk_tokens_user_slot", columnNames = {"user_id", "slot"}))
 @Getter
 @Setter
 @AllArgsConstructor
@@ -19,15 +21,23 @@ public class Token {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(name = "token", length = 255)
+    @Column(name = "token", length = 1000)
     private String token;
 
+    // SHA-256 của token, khóa tra cứu cố định 32 byte có unique index
+    @Column(name = "token_hash", columnDefinition = "binary(32)", unique = true)
+    private byte[] tokenHash;
+
     @Column(name = "token_type", length = 50)
     private String tokenType;
 
     @Column(name = "expiration_date")
     private LocalDateTime expirationDate;
 
+    // vị trí phiên của user, 0..MAX_TOKENS-1
+    @Column(name = "slot")
+    private Integer slot;
+
     private boolean revoked;
     private boolean expired;
 
@@ -35,5 +45,10 @@ public class Token {
     @JoinColumn(name = "user_id")
     private User user;
 
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        tokenHash = TokenHashUtils.sha256(token);
+    }
 
 }
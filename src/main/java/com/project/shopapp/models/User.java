@@ -47,6 +47,15 @@ public class User extends BaseEntity implements UserDetails {
     @Column(name = "google_account_id")
     private Integer googleAccountId;
 
+    // số lần đăng nhập, (session_seq - 1) % MAX_TOKENS là slot token sẽ bị ghi đè.
+    // Chỉ đổi qua UPDATE có chủ đích trong UserRepository, save(user) không ghi đè giá trị cũ lên
+    @Column(name = "session_seq", nullable = false, updatable = false, columnDefinition = "bigint default 0")
+    private long sessionSeq;
+
+    // tăng khi logout mọi nơi, đổi role, đổi mật khẩu hoặc khóa tài khoản => token cũ mất hiệu lực
+    @Column(name = "token_version", nullable = false, updatable = false, columnDefinition = "int default 0")
+    private int tokenVersion;
+
     @ManyToOne
     @JoinColumn(name = "role_id")
     private com.project.shopapp.models.Role role;
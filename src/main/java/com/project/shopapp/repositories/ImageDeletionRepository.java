@@ -0,0 +1,26 @@
+package com.project.shopapp.repositories;
+
+import com.project.shopapp.models.ImageDeletion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ImageDeletionRepository extends JpaRepository<ImageDeletion, Long> {
+    // FOR UPDATE SKIP LOCKED (lock timeout -2): node khác đang nhận lô nào thì bỏ qua lô đó
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT d FROM ImageDeletion d WHERE d.notBefore <= :now ORDER BY d.id")
+    List<ImageDeletion> findDueForUpdate(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("SELECT DISTINCT d.imageName FROM ImageDeletion d WHERE d.imageName IN :names")
+    List<String> findQueuedImageNames(@Param("names") Collection<String> names);
+}
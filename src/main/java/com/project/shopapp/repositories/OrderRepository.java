@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +32,47 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
             "OR o.email LIKE %:keyword%)")
     Page<Order> findByUserIdAndKeyword(@Param("userId") Long userId, @Param("keyword") String keyword, Pageable pageable);
     
+    // Phân trang keyset theo id
+    @Query("SELECT o FROM Order o WHERE o.active = true AND (:keyword IS NULL OR :keyword = '' OR " +
+            "o.fullName LIKE %:keyword% " +
+            "OR o.address LIKE %:keyword% " +
+            "OR o.note LIKE %:keyword% " +
+            "OR o.email LIKE %:keyword%) " +
+            "AND o.id > :afterId ORDER BY o.id ASC")
+    List<Order> findByKeywordAfter(@Param("keyword") String keyword, @Param("afterId") Long afterId,
+                                   Pageable pageable);
+
+    @Query("SELECT COUNT(o) FROM Order o WHERE o.active = true AND (:keyword IS NULL OR :keyword = '' OR " +
+            "o.fullName LIKE %:keyword% " +
+            "OR o.address LIKE %:keyword% " +
+            "OR o.note LIKE %:keyword% " +
+            "OR o.email LIKE %:keyword%)")
+    long countByKeyword(@Param("keyword") String keyword);
+
+    // Phân trang keyset theo (orderDate, id) giảm dần; keyword rỗng => lấy cả đơn đã xóa mềm như findByUserId.
+    // orderDate NULL xếp cuối khi DESC (MySQL coi NULL nhỏ nhất): cursor có ngày thì vẫn lấy các đơn NULL phía sau,
+    // cursor có ngày NULL thì chỉ còn seek theo id trong nhóm NULL. afterId NULL = trang đầu.
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId AND (:keyword = '' OR (o.active = true AND (" +
+            "o.fullName LIKE %:keyword% " +
+            "OR o.address LIKE %:keyword% " +
+            "OR o.note LIKE %:keyword% " +
+            "OR o.email LIKE %:keyword%))) " +
+            "AND (:afterId IS NULL " +
+            "OR (:afterDate IS NULL AND o.orderDate IS NULL AND o.id < :afterId) " +
+            "OR (:afterDate IS NOT NULL AND (o.orderDate < :afterDate " +
+            "OR (o.orderDate = :afterDate AND o.id < :afterId) OR o.orderDate IS NULL))) " +
+            "ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findUserOrdersAfter(@Param("userId") Long userId, @Param("keyword") String keyword,
+                                    @Param("afterDate") LocalDate afterDate, @Param("afterId") Long afterId,
+                                    Pageable pageable);
+
+    @Query("SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId AND (:keyword = '' OR (o.active = true AND (" +
+            "o.fullName LIKE %:keyword% " +
+            "OR o.address LIKE %:keyword% " +
+            "OR o.note LIKE %:keyword% " +
+            "OR o.email LIKE %:keyword%)))")
+    long countUserOrders(@Param("userId") Long userId, @Param("keyword") String keyword);
+
     // Lấy order mới nhất của 1 user, theo orderDate giảm dần
     Optional<Order> findTopByUserIdOrderByOrderDateDesc(Long userId);
 }
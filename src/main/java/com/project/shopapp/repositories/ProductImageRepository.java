@@ -2,9 +2,32 @@ package com.project.shopapp.repositories;
 
 import com.project.shopapp.models.ProductImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
     List<ProductImage> findByProductId(Long productId);
+
+    long countByProductId(Long productId);
+
+    @Query("SELECT pi.imageUrl FROM ProductImage pi WHERE pi.product.id = :productId AND pi.imageUrl IS NOT NULL")
+    List<String> findImageUrlsByProductId(@Param("productId") Long productId);
+
+    // Tên nào trong danh sách còn được tham chiếu, dùng cho sweeper
+    @Query("SELECT DISTINCT pi.imageUrl FROM ProductImage pi WHERE pi.imageUrl IN :names")
+    List<String> findReferencedImageUrls(@Param("names") Collection<String> names);
+
+    @Query("SELECT DISTINCT pi.imageUrl FROM ProductImage pi WHERE pi.imageUrl IS NOT NULL")
+    List<String> findAllImageUrls();
+
+    // Số tham chiếu tới một file trong kho ảnh
+    long countByImageUrl(String imageUrl);
+
+    @Modifying
+    @Query("UPDATE ProductImage pi SET pi.imageUrl = :newUrl WHERE pi.imageUrl = :oldUrl")
+    int renameImageUrl(@Param("oldUrl") String oldUrl, @Param("newUrl") String newUrl);
 }
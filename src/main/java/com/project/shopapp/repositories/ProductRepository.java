@@ -3,9 +3,15 @@ package com.project.shopapp.repositories;
 import com.project.shopapp.models.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.domain.*;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,21 +19,75 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     boolean existsByName(String name);
     Page<Product> findAll(Pageable pageable);//phân trang
 
+    // category được join ngay trong câu query, ảnh nạp theo lô (@BatchSize) => số câu SQL không phụ thuộc kích thước trang
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT p FROM Product p WHERE " +
             "(:categoryId IS NULL OR :categoryId = 0 OR p.category.id = :categoryId) " +
             "AND (:keyword IS NULL OR :keyword = '' OR p.name LIKE %:keyword% OR p.description LIKE %:keyword%)")
     Page<Product> searchProducts
             (@Param("categoryId") Long categoryId,
              @Param("keyword") String keyword, Pageable pageable);
+
+    // Phân trang keyset theo id, không cần truy vấn COUNT
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p WHERE " +
+            "(:categoryId IS NULL OR :categoryId = 0 OR p.category.id = :categoryId) " +
+            "AND (:keyword IS NULL OR :keyword = '' OR p.name LIKE %:keyword% OR p.description LIKE %:keyword%) " +
+            "AND p.id > :afterId ORDER BY p.id ASC")
+    List<Product> searchProductsAfter(@Param("categoryId") Long categoryId,
+                                      @Param("keyword") String keyword,
+                                      @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT COUNT(p) FROM Product p WHERE " +
+            "(:categoryId IS NULL OR :categoryId = 0 OR p.category.id = :categoryId) " +
+            "AND (:keyword IS NULL OR :keyword = '' OR p.name LIKE %:keyword% OR p.description LIKE %:keyword%)")
+    long countProducts(@Param("categoryId") Long categoryId, @Param("keyword") String keyword);
+
+    // Dữ liệu cho search index, đọc theo từng lô id tăng dần
+    @Query("SELECT p.id, p.name, p.description, p.category.id FROM Product p " +
+            "WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findSearchDocuments(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT DISTINCT p.thumbnail FROM Product p WHERE p.thumbnail IS NOT NULL AND p.thumbnail <> ''")
+    List<String> findAllThumbnails();
+
+    long countByThumbnail(String thumbnail);
+
+    // Upsert theo tên khi import
+    @EntityGraph(attributePaths = "category")
+    List<Product> findByNameIn(Collection<String> names);
+
+    @Query("SELECT DISTINCT p.thumbnail FROM Product p WHERE p.thumbnail IN :names")
+    List<String> findReferencedThumbnails(@Param("names") Collection<String> names);
+
+    // Khóa row sản phẩm đến hết transaction, tuần tự hóa các lượt thêm ảnh đồng thời
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id = :id")
+    Optional<Product> findByIdForUpdate(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Product p SET p.thumbnail = :newName WHERE p.thumbnail = :oldName")
+    int renameThumbnail(@Param("oldName") String oldName, @Param("newName") String newName);
+
+    // Dùng cho ETag/Last-Modified, không cần load cả entity
+    @Query("SELECT p.updatedAt FROM Product p WHERE p.id = :productId")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("productId") Long productId);
+
     @Query("SELECT p FROM Product p LEFT JOIN FETCH p.productImages WHERE p.id = :productId")
     Optional<Product> getDetailProduct(@Param("productId") Long productId);
 
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT p FROM Product p WHERE p.id IN :productIds")
     List<Product> findProductsByIds(@Param("productIds") List<Long> productIds);
     
     // Featured products - get the most recent products
+    @EntityGraph(attributePaths = "category")
     List<Product> findTopByOrderByIdDesc(Pageable pageable);
 
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Product> findAllById(Iterable<Long> ids);
+
     // Lấy sản phẩm nổi bật nhất (ví dụ: sản phẩm bán chạy nhất)
     @Query("SELECT p FROM Product p ORDER BY p.id DESC LIMIT 1")
     Product findTopByOrderByIdDesc();
@@ -0,0 +1,26 @@
+package com.project.shopapp.repositories;
+
+import com.project.shopapp.models.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+    RefreshToken findByTokenHash(byte[] tokenHash);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.token.id = :tokenId")
+    int deleteBySessionId(@Param("tokenId") Long tokenId);
+
+    // Đánh dấu đã dùng, trả về 0 nếu request khác đã dùng token này trước
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.used = true WHERE r.id = :id AND r.used = false")
+    int markUsed(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expirationDate < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
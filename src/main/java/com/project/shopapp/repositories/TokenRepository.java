@@ -2,13 +2,35 @@ package com.project.shopapp.repositories;
 
 import com.project.shopapp.models.Token;
 import com.project.shopapp.models.User;
+import com.project.shopapp.utils.TokenHashUtils;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface TokenRepository  extends JpaRepository<Token, Long> {
     List<Token> findByUser(User user);
 
-    Token findByToken(String token);
+    Token findByTokenHash(byte[] tokenHash);
+
+    Token findByUserIdAndSlot(Long userId, Integer slot);
+
+    // tra cứu qua unique index token_hash thay vì so sánh chuỗi token
+    default Token findByToken(String token) {
+        return findByTokenHash(TokenHashUtils.sha256(token));
+    }
+
+    // Khóa dòng phiên đến hết transaction, tuần tự hóa các lượt refresh cùng phiên
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Token t WHERE t.id = :id")
+    Optional<Token> findByIdForUpdate(@Param("id") Long id);
+
+    // [token_hash, revoked] của các token chưa hết hạn, dùng để dựng TokenRevocationIndex
+    @Query("SELECT t.tokenHash, t.revoked FROM Token t WHERE t.expirationDate > :now")
+    List<Object[]> findUnexpiredTokens(@Param("now") LocalDateTime now);
 }
@@ -3,8 +3,12 @@ package com.project.shopapp.repositories;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.project.shopapp.models.*;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -14,5 +18,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     // Admin methods
     Page<User> findByFullNameContainingIgnoreCase(String fullName, Pageable pageable);
+
+    // Phân trang keyset theo id
+    @Query("SELECT u FROM User u WHERE (:keyword = '' OR LOWER(u.fullName) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
+            "AND u.id > :afterId ORDER BY u.id ASC")
+    List<User> findUsersAfter(@Param("keyword") String keyword, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT COUNT(u) FROM User u WHERE :keyword = '' OR LOWER(u.fullName) LIKE LOWER(CONCAT('%', :keyword, '%'))")
+    long countUsers(@Param("keyword") String keyword);
+
+    // UPDATE giữ row lock của user đến hết transaction => các lần login đồng thời được tuần tự hóa
+    @Modifying
+    @Query("UPDATE User u SET u.sessionSeq = u.sessionSeq + 1 WHERE u.id = :userId")
+    int incrementSessionSeq(@Param("userId") Long userId);
+
+    @Query("SELECT u.sessionSeq FROM User u WHERE u.id = :userId")
+    long findSessionSeq(@Param("userId") Long userId);
+
+    // token cũ mang tokenVersion nhỏ hơn => bị từ chối ở chế độ stateless
+    @Modifying
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id = :userId")
+    int incrementTokenVersion(@Param("userId") Long userId);
 }
 
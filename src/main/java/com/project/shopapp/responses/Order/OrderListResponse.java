@@ -1,5 +1,7 @@
 package com.project.shopapp.responses.Order;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,4 +16,14 @@ import java.util.List;
 public class OrderListResponse {
     private List<OrderResponse> orders;
     private int totalPages;
+
+    // Chỉ có ở chế độ cursor (?after=)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+
+    // Chỉ có khi client yêu cầu include_total, có thể trễ tối đa TTL của CountCache
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("total_elements")
+    private Long totalElements;
 }
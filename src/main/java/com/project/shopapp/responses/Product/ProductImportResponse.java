@@ -0,0 +1,38 @@
+package com.project.shopapp.responses.Product;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import java.util.List;
+
+@AllArgsConstructor
+@Getter
+@Setter
+@Builder
+@Data
+@NoArgsConstructor
+public class ProductImportResponse {
+    @JsonProperty("total_rows")
+    private long totalRows;
+
+    private long created;
+
+    private long updated;
+
+    private long failed;
+
+    // Chỉ giữ tối đa product-import.max-errors lỗi đầu tiên
+    private List<RowError> errors;
+
+    @JsonProperty("errors_truncated")
+    private boolean errorsTruncated;
+
+    @JsonProperty("elapsed_ms")
+    private long elapsedMs;
+
+    @JsonProperty("rows_per_second")
+    private double rowsPerSecond;
+
+    public record RowError(long row, String message) {
+    }
+}
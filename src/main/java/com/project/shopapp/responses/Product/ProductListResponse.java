@@ -1,5 +1,7 @@
 package com.project.shopapp.responses.Product;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 
 import java.util.List;
@@ -13,4 +15,14 @@ import java.util.List;
 public class ProductListResponse {
     private List<ProductResponse> products;
     private int totalPages;
+
+    // Chỉ có ở chế độ cursor (?after=)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+
+    // Chỉ có khi client yêu cầu include_total, có thể trễ tối đa TTL của CountCache
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("total_elements")
+    private Long totalElements;
 }
@@ -38,7 +38,9 @@ public class ProductResponse extends BaseResponse {
                 .description(product.getDescription())
                 .stock_quantity(product.getStock_quantity())
                 .categoryId(product.getCategory().getId())
-                .productImages(product.getProductImages())
+                // copy ra ArrayList để response không giữ collection lazy của Hibernate (an toàn khi cache)
+                .productImages(product.getProductImages() != null
+                        ? new ArrayList<>(product.getProductImages()) : new ArrayList<>())
                 .build();
         productResponse.setCreatedAt(product.getCreatedAt());
         productResponse.setUpdatedAt(product.getUpdatedAt());
@@ -0,0 +1,25 @@
+package com.project.shopapp.responses.User;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class UserListResponse {
+    private List<UserResponse> users;
+
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+
+    // Chỉ có khi client yêu cầu include_total
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty("total_elements")
+    private Long totalElements;
+}
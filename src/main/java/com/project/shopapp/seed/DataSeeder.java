@@ -0,0 +1,498 @@
+package com.project.shopapp.seed;
+
+import com.github.javafaker.Faker;
+import com.project.shopapp.models.OrderStatus;
+import com.project.shopapp.models.Role;
+import com.project.shopapp.services.Product.IProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fills the database with synthetic users, categories, products, images,
+ * coupons, orders, order details and login sessions, for benchmarks and
+ * capacity tests. It only runs under the {@code seed} profile:
+ * <pre>
+ * mvn spring-boot:run -Dspring-boot.run.profiles=seed \
+ *     -Dspring-boot.run.arguments="--seed.products=1000000 --seed.orders=10000000"
+ * </pre>
+ * Rows are appended after the current {@code MAX(id)} of each table, with
+ * explicit ids, so foreign keys can be computed without reading anything
+ * back. Every table is split into chunks of {@code seed.chunk-size} ids. The
+ * chunks run in parallel, each with its own Faker (one per thread) and a
+ * random stream derived from {@code seed.random-seed}, and are written as
+ * multi-row INSERTs through JDBC, bypassing Hibernate.
+ * <p>
+ * The distributions are skewed the way real shop data is. A small share of
+ * users place most orders, popular products appear in most order lines,
+ * prices are log-normal, and order dates cluster in recent months, with
+ * status following the order's age. The Hibernate sequence tables are
+ * bumped past the new ids at the end.
+ */
+@Component
+@Profile("seed")
+public class DataSeeder implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(DataSeeder.class);
+    private static final String SEED_PASSWORD = "Seed@123";
+    // pooled sequence allocationSize + 1, giống các migration trong database.sql
+    private static final int SEQUENCE_HEADROOM = 51;
+    private static final String[] COLORS = {"Đen", "Trắng", "Bạc", "Xanh", "Đỏ", "Vàng", "Titan"};
+    private static final String[] SHIPPING_METHODS = {"express", "standard"};
+    // "00" là đầu số quốc tế, không phải số điện thoại thật => số seed không trùng user thật
+    private static final String SEED_PHONE_PREFIX = "00";
+    private static final long SEED_PHONE_NUMBERS = 100_000_000L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final IProductService productService;
+    private final ConfigurableApplicationContext context;
+    private final ThreadLocal<Faker> fakers = ThreadLocal.withInitial(() -> new Faker(new Locale("vi")));
+
+    @Value("${seed.users:10000}")
+    private long users;
+    @Value("${seed.categories:20}")
+    private int categories;
+    @Value("${seed.products:10000}")
+    private long products;
+    @Value("${seed.orders:100000}")
+    private long orders;
+    @Value("${seed.coupons:100}")
+    private int coupons;
+    @Value("${seed.threads:0}")
+    private int threads;
+    @Value("${seed.chunk-size:5000}")
+    private int chunkSize;
+    @Value("${seed.rows-per-insert:1000}")
+    private int rowsPerInsert;
+    @Value("${seed.random-seed:42}")
+    private long randomSeed;
+    @Value("${seed.order-days:730}")
+    private int orderDays;
+    @Value("${seed.exit-when-done:true}")
+    private boolean exitWhenDone;
+
+    // id lớn nhất trước khi seed, các bảng con cấp id từ counter dùng chung giữa các thread
+    private long userBase;
+    // số seed lớn nhất đã có, user mới lấy số tiếp theo
+    private long phoneBase;
+    private long categoryBase;
+    private long productBase;
+    private long orderBase;
+    private AtomicLong tokenIds;
+    private AtomicLong imageIds;
+    private AtomicLong detailIds;
+    // id thật trong DB (có thể có lỗ hổng do xóa), nạp lại sau khi seed bảng tương ứng
+    private long[] categoryIds;
+    private String[] categoryKeys;
+    private long[] userIds;
+    private long[] productIds;
+    private long userRoleId;
+    private String passwordHash;
+
+    public DataSeeder(JdbcTemplate jdbcTemplate,
+                      PasswordEncoder passwordEncoder,
+                      IProductService productService,
+                      ConfigurableApplicationContext context) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.productService = productService;
+        this.context = context;
+    }
+
+    @FunctionalInterface
+    private interface ChunkTask {
+        long run(long from, long to, SplittableRandom random, Faker faker);
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        long start = System.nanoTime();
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "seed-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            userBase = maxId("users");
+            phoneBase = maxSeedPhoneNumber();
+            if (phoneBase + users >= SEED_PHONE_NUMBERS) {
+                throw new IllegalStateException("Not enough seed phone numbers left for " + users + " users");
+            }
+            categoryBase = maxId("categories");
+            productBase = maxId("products");
+            orderBase = maxId("orders");
+            tokenIds = new AtomicLong(maxId("tokens"));
+            imageIds = new AtomicLong(maxId("product_images"));
+            detailIds = new AtomicLong(maxId("order_details"));
+            userRoleId = userRoleId();
+            // một hash dùng chung: BCrypt cho từng user sẽ chiếm phần lớn thời gian seed
+            passwordHash = passwordEncoder.encode(SEED_PASSWORD);
+            logger.info("Seeding {} users, {} categories, {} products, {} coupons, {} orders on {} threads",
+                    users, categories, products, coupons, orders, poolSize);
+
+            seedCategories();
+            loadCategories();
+            runChunks(pool, "users", users, this::seedUsers);
+            if (categoryIds.length > 0) {
+                runChunks(pool, "products", products, this::seedProducts);
+            }
+            seedCoupons();
+            userIds = loadIds("users");
+            productIds = loadIds("products");
+            if (userIds.length > 0 && productIds.length > 0) {
+                runChunks(pool, "orders", orders, this::seedOrders);
+            }
+
+            bumpSequence("product_images_seq", "product_images");
+            bumpSequence("order_details_seq", "order_details");
+            productService.evictCatalogCaches();
+        } finally {
+            pool.shutdownNow();
+        }
+        logger.info("Seeding finished in {} s. Rebuild the search index on running nodes with "
+                + "POST /products/search-index/rebuild", (System.nanoTime() - start) / 1_000_000_000);
+        if (exitWhenDone) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    private void runChunks(ExecutorService pool, String table, long total, ChunkTask task) throws Exception {
+        if (total <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        long salt = table.hashCode() * 1_000_003L;
+        List<Future<Long>> futures = new ArrayList<>();
+        for (long from = 0; from < total; from += chunkSize) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(total, from + chunkSize);
+            futures.add(pool.submit(() -> task.run(chunkFrom, chunkTo,
+                    new SplittableRandom(randomSeed * 31 + salt + chunkFrom), fakers.get())));
+        }
+        long rows = 0;
+        int logEvery = Math.max(1, futures.size() / 10);
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                rows += futures.get(i).get();
+            } catch (ExecutionException e) {
+                futures.forEach(future -> future.cancel(true));
+                throw new IllegalStateException("Seeding " + table + " failed", e.getCause());
+            }
+            if ((i + 1) % logEvery == 0 || i + 1 == futures.size()) {
+                double seconds = Math.max(0.001, (System.nanoTime() - start) / 1e9);
+                logger.info("Seeded {}: {}/{} chunks, {} rows ({} rows/s)",
+                        table, i + 1, futures.size(), rows, Math.round(rows / seconds));
+            }
+        }
+    }
+
+    private void seedCategories() {
+        MultiRowInserter inserter = new MultiRowInserter(jdbcTemplate, "categories", rowsPerInsert, "id", "name");
+        for (int i = 0; i < categories; i++) {
+            String key = SeedCatalog.CATEGORIES.get(i % SeedCatalog.CATEGORIES.size());
+            int round = i / SeedCatalog.CATEGORIES.size();
+            inserter.add(categoryBase + i + 1, round == 0 ? key : key + " " + (round + 1));
+        }
+        inserter.flush();
+    }
+
+    private long seedUsers(long from, long to, SplittableRandom random, Faker faker) {
+        MultiRowInserter userRows = new MultiRowInserter(jdbcTemplate, "users", rowsPerInsert,
+                "id", "fullname", "phone_number", "address", "password", "is_active", "date_of_birth",
+                "facebook_account_id", "google_account_id", "role_id", "session_seq", "token_version",
+                "created_at", "updated_at");
+        int[] sessions = new int[(int) (to - from)];
+        LocalDateTime now = LocalDateTime.now();
+        for (long i = from; i < to; i++) {
+            long id = userBase + i + 1;
+            // đa số user có 0-1 phiên đăng nhập, số ít đăng nhập trên nhiều thiết bị
+            double r = random.nextDouble();
+            int sessionCount = r < 0.4 ? 0 : r < 0.75 ? 1 : r < 0.92 ? 2 : 3;
+            sessions[(int) (i - from)] = sessionCount;
+            LocalDateTime createdAt = now.minusMinutes(random.nextLong(orderDays * 24L * 60 + 1));
+            userRows.add(id,
+                    truncate(faker.name().fullName(), 100),
+                    phoneNumber(id),
+                    truncate(faker.address().streetAddress() + ", " + faker.address().city(), 200),
+                    passwordHash,
+                    random.nextDouble() < 0.98,
+                    LocalDate.of(1960 + random.nextInt(48), 1 + random.nextInt(12), 1 + random.nextInt(28)),
+                    0, 0,
+                    userRoleId,
+                    sessionCount, 0,
+                    createdAt, createdAt);
+        }
+        userRows.flush();
+
+        // token sau user để khóa ngoại luôn hợp lệ
+        MultiRowInserter tokenRows = new MultiRowInserter(jdbcTemplate, "tokens", rowsPerInsert,
+                "id", "token", "token_hash", "token_type", "expiration_date", "slot", "revoked", "expired", "user_id");
+        byte[] raw = new byte[48];
+        for (long i = from; i < to; i++) {
+            long userId = userBase + i + 1;
+            for (int slot = 0; slot < sessions[(int) (i - from)]; slot++) {
+                random.nextBytes(raw);
+                String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+                boolean expired = random.nextDouble() < 0.3;
+                tokenRows.add(tokenIds.incrementAndGet(), token, sha256(token), "Bearer",
+                        expired ? now.minusDays(1 + random.nextInt(30)) : now.plusMinutes(1 + random.nextInt(15)),
+                        slot, random.nextDouble() < 0.05, expired, userId);
+            }
+        }
+        tokenRows.flush();
+        return userRows.getInserted() + tokenRows.getInserted();
+    }
+
+    private long seedProducts(long from, long to, SplittableRandom random, Faker faker) {
+        MultiRowInserter productRows = new MultiRowInserter(jdbcTemplate, "products", rowsPerInsert,
+                "id", "name", "price", "thumbnail", "description", "quantity", "stock_quantity", "category_id",
+                "created_at", "updated_at");
+        List<Object[]> images = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (long i = from; i < to; i++) {
+            long id = productBase + i + 1;
+            // vài danh mục chiếm phần lớn sản phẩm
+            int categoryIndex = (int) skewed(random, categoryIds.length, 1.5);
+            long categoryId = categoryIds[categoryIndex];
+            String key = categoryKeys[categoryIndex];
+            List<String> descriptions = SeedCatalog.DESCRIPTIONS.get(key);
+            String description = descriptions.get(random.nextInt(descriptions.size()))
+                    + " Thêm vào đó, sản phẩm này có các tính năng như " + faker.commerce().productName()
+                    + ", " + faker.commerce().color() + " sắc nét và dễ sử dụng.";
+            List<String> imageNames = SeedCatalog.IMAGES.get(key);
+            LocalDateTime createdAt = now.minusMinutes(random.nextLong(orderDays * 24L * 60 + 1));
+            productRows.add(id,
+                    truncate(SeedCatalog.productName(key, faker), 350),
+                    (float) priceOf(id),
+                    imageNames.get(random.nextInt(imageNames.size())),
+                    description,
+                    10 + random.nextInt(191),
+                    10 + random.nextInt(491),
+                    categoryId,
+                    createdAt, createdAt);
+            int imageCount = 1 + random.nextInt(5);
+            for (int j = 0; j < imageCount; j++) {
+                images.add(new Object[]{imageIds.incrementAndGet(), id, imageNames.get(j % imageNames.size())});
+            }
+        }
+        productRows.flush();
+
+        MultiRowInserter imageRows = new MultiRowInserter(jdbcTemplate, "product_images", rowsPerInsert,
+                "id", "product_id", "image_url");
+        images.forEach(imageRows::add);
+        imageRows.flush();
+        return productRows.getInserted() + imageRows.getInserted();
+    }
+
+    private void seedCoupons() {
+        if (coupons <= 0) {
+            return;
+        }
+        long couponBase = maxId("coupons");
+        long conditionId = maxId("coupon_conditions");
+        SplittableRandom random = new SplittableRandom(randomSeed * 31 + "coupons".hashCode());
+        MultiRowInserter couponRows = new MultiRowInserter(jdbcTemplate, "coupons", rowsPerInsert,
+                "id", "code", "active");
+        List<Object[]> conditions = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < coupons; i++) {
+            long id = couponBase + i + 1;
+            couponRows.add(id, "SEED" + id + Long.toString(random.nextLong(36L * 36 * 36 * 36), 36).toUpperCase(Locale.ROOT),
+                    random.nextDouble() < 0.85);
+            conditions.add(new Object[]{++conditionId, id, "minimum_amount", ">",
+                    String.valueOf(100_000L * (1 + random.nextInt(50))), 5 + random.nextInt(26)});
+            if (random.nextDouble() < 0.3) {
+                LocalDate date = today.plusDays(random.nextInt(60));
+                conditions.add(new Object[]{++conditionId, id, "applicable_date", "=",
+                        date.getYear() + "-" + date.getMonthValue() + "-" + date.getDayOfMonth(),
+                        5 + random.nextInt(16)});
+            }
+        }
+        couponRows.flush();
+        MultiRowInserter conditionRows = new MultiRowInserter(jdbcTemplate, "coupon_conditions", rowsPerInsert,
+                "id", "coupon_id", "attribute", "operator", "value", "discount_amount");
+        conditions.forEach(conditionRows::add);
+        conditionRows.flush();
+        logger.info("Seeded coupons: {} coupons, {} conditions", couponRows.getInserted(), conditionRows.getInserted());
+    }
+
+    private long seedOrders(long from, long to, SplittableRandom random, Faker faker) {
+        MultiRowInserter orderRows = new MultiRowInserter(jdbcTemplate, "orders", rowsPerInsert,
+                "id", "user_id", "fullname", "email", "phone_number", "address", "note", "order_date", "status",
+                "total_money", "shipping_method", "shipping_address", "shipping_date", "tracking_number",
+                "payment_method", "active");
+        List<Object[]> details = new ArrayList<>();
+        LocalDate today = LocalDate.now();
+        for (long i = from; i < to; i++) {
+            long id = orderBase + i + 1;
+            // số ít khách hàng đặt phần lớn đơn
+            long userId = userIds[(int) skewed(random, userIds.length, 2.0)];
+            // đơn gần đây nhiều hơn đơn cũ
+            int age = (int) (orderDays * Math.pow(random.nextDouble(), 1.6));
+            LocalDate orderDate = today.minusDays(age);
+            String status = statusFor(age, random);
+
+            double total = 0;
+            // 1-5 dòng hàng, phân phối hình học
+            int lines = 1;
+            while (lines < 5 && random.nextDouble() < 0.45) {
+                lines++;
+            }
+            for (int j = 0; j < lines; j++) {
+                long productId = productIds[(int) skewed(random, productIds.length, 2.5)];
+                long price = priceOf(productId);
+                int quantity = random.nextDouble() < 0.85 ? 1 : 2 + random.nextInt(2);
+                total += (double) price * quantity;
+                details.add(new Object[]{detailIds.incrementAndGet(), id, productId, (float) price, quantity,
+                        (float) (price * quantity), COLORS[random.nextInt(COLORS.length)]});
+            }
+
+            String address = truncate(faker.address().streetAddress() + ", " + faker.address().city(), 100);
+            boolean shipped = status.equals(OrderStatus.SHIPPED) || status.equals(OrderStatus.DELIVERED);
+            double payment = random.nextDouble();
+            orderRows.add(id,
+                    userId,
+                    truncate(faker.name().fullName(), 100),
+                    "user" + userId + "@example.com",
+                    phoneNumber(userId),
+                    address,
+                    random.nextDouble() < 0.2 ? "Giao giờ hành chính" : "",
+                    orderDate,
+                    status,
+                    (float) total,
+                    SHIPPING_METHODS[random.nextDouble() < 0.3 ? 0 : 1],
+                    address,
+                    shipped ? orderDate.plusDays(1 + random.nextInt(5)) : null,
+                    shipped ? "TRK" + id : null,
+                    payment < 0.6 ? "cod" : payment < 0.9 ? "banking" : "momo",
+                    true);
+        }
+        orderRows.flush();
+
+        // order_details sau orders để khóa ngoại luôn hợp lệ
+        MultiRowInserter detailRows = new MultiRowInserter(jdbcTemplate, "order_details", rowsPerInsert,
+                "id", "order_id", "product_id", "price", "number_of_products", "total_money", "color");
+        details.forEach(detailRows::add);
+        detailRows.flush();
+        return orderRows.getInserted() + detailRows.getInserted();
+    }
+
+    // Đơn cũ hầu hết đã giao hoặc đã hủy, đơn vài ngày gần đây còn đang xử lý
+    private static String statusFor(int age, SplittableRandom random) {
+        double r = random.nextDouble();
+        if (age <= 1) {
+            return r < 0.5 ? OrderStatus.PENDING : r < 0.85 ? OrderStatus.PROCESSING : OrderStatus.CANCELLED;
+        }
+        if (age <= 5) {
+            return r < 0.1 ? OrderStatus.PROCESSING : r < 0.6 ? OrderStatus.SHIPPED
+                    : r < 0.93 ? OrderStatus.DELIVERED : OrderStatus.CANCELLED;
+        }
+        return r < 0.92 ? OrderStatus.DELIVERED : OrderStatus.CANCELLED;
+    }
+
+    // Giá log-normal (trung vị ~3 triệu), tính lại được từ id nên order_details không cần đọc bảng products
+    private long priceOf(long productId) {
+        SplittableRandom random = new SplittableRandom(randomSeed ^ (productId * 0x9E3779B97F4A7C15L));
+        double price = Math.exp(Math.log(3_000_000) + 0.9 * random.nextGaussian());
+        price = Math.max(100_000, Math.min(80_000_000, price));
+        return Math.round(price / 1000) * 1000;
+    }
+
+    // Chỉ số trong [0, n), lệch về phía đầu; skew càng lớn càng tập trung
+    private static long skewed(SplittableRandom random, long n, double skew) {
+        return Math.min(n - 1, (long) (n * Math.pow(random.nextDouble(), skew)));
+    }
+
+    // User seed lần này có số liên tiếp sau phoneBase; user cũ (chỉ dùng cho liên hệ trong đơn) lấy số bất kỳ
+    private String phoneNumber(long userId) {
+        return SEED_PHONE_PREFIX + String.format("%08d", Math.floorMod(phoneBase + userId - userBase, SEED_PHONE_NUMBERS));
+    }
+
+    private static String truncate(String value, int length) {
+        return value.length() <= length ? value : value.substring(0, length);
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private long maxSeedPhoneNumber() {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(CAST(SUBSTRING(phone_number, 3) AS UNSIGNED)), 0) "
+                + "FROM users WHERE phone_number REGEXP ?", Long.class, "^" + SEED_PHONE_PREFIX + "[0-9]{8}$");
+        return max == null ? 0 : max;
+    }
+
+    private long maxId(String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        return max == null ? 0 : max;
+    }
+
+    // Khóa ảnh/mô tả theo tên danh mục, danh mục lạ thì lấy xoay vòng
+    private void loadCategories() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT id, name FROM categories ORDER BY id");
+        categoryIds = new long[rows.size()];
+        categoryKeys = new String[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            categoryIds[i] = ((Number) rows.get(i).get("id")).longValue();
+            String name = String.valueOf(rows.get(i).get("name")).toLowerCase(Locale.ROOT).trim();
+            String fallback = SeedCatalog.CATEGORIES.get(i % SeedCatalog.CATEGORIES.size());
+            categoryKeys[i] = SeedCatalog.CATEGORIES.stream().filter(name::startsWith).findFirst().orElse(fallback);
+        }
+    }
+
+    private long[] loadIds(String table) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " ORDER BY id", Long.class).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    private long userRoleId() {
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM roles WHERE name = ?", Long.class, Role.USER);
+        if (!ids.isEmpty()) {
+            return ids.get(0);
+        }
+        long id = maxId("roles") + 1;
+        jdbcTemplate.update("INSERT INTO roles (id, name) VALUES (?, ?)", id, Role.USER);
+        return id;
+    }
+
+    // next_val phải vượt MAX(id) mới, nếu không Hibernate sẽ cấp trùng id với dữ liệu vừa seed
+    private void bumpSequence(String sequenceTable, String table) {
+        long next = maxId(table) + SEQUENCE_HEADROOM;
+        int updated = jdbcTemplate.update("UPDATE " + sequenceTable + " SET next_val = GREATEST(next_val, ?)", next);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO " + sequenceTable + " (next_val) VALUES (?)", next);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.project.shopapp.seed;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Buffers rows and writes them as one {@code INSERT ... VALUES (..),(..)}
+ * statement per {@code rowsPerStatement} rows. Not thread-safe: each seeding
+ * task uses its own instance.
+ */
+class MultiRowInserter {
+    // MySQL giới hạn 65535 placeholder mỗi câu lệnh
+    private static final int MAX_PLACEHOLDERS = 65_535;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String prefix;
+    private final String rowPlaceholders;
+    private final int columnCount;
+    private final int rowsPerStatement;
+    private final List<Object> args = new ArrayList<>();
+    private String fullStatement;
+    private int rows;
+    private long inserted;
+
+    MultiRowInserter(JdbcTemplate jdbcTemplate, String table, int rowsPerStatement, String... columns) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.columnCount = columns.length;
+        this.rowsPerStatement = Math.max(1, Math.min(rowsPerStatement, MAX_PLACEHOLDERS / columns.length));
+        this.prefix = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ";
+        this.rowPlaceholders = "(" + String.join(", ", Collections.nCopies(columns.length, "?")) + ")";
+    }
+
+    void add(Object... values) {
+        if (values.length != columnCount) {
+            throw new IllegalArgumentException("Expected " + columnCount + " values but got " + values.length);
+        }
+        args.addAll(Arrays.asList(values));
+        if (++rows == rowsPerStatement) {
+            flush();
+        }
+    }
+
+    void flush() {
+        if (rows == 0) {
+            return;
+        }
+        String sql;
+        if (rows == rowsPerStatement) {
+            if (fullStatement == null) {
+                fullStatement = statement(rows);
+            }
+            sql = fullStatement;
+        } else {
+            sql = statement(rows);
+        }
+        jdbcTemplate.update(sql, args.toArray());
+        inserted += rows;
+        args.clear();
+        rows = 0;
+    }
+
+    long getInserted() {
+        return inserted;
+    }
+
+    private String statement(int rowCount) {
+        StringBuilder sql = new StringBuilder(prefix.length() + rowCount * (rowPlaceholders.length() + 1));
+        sql.append(prefix);
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                sql.append(',');
+            }
+            sql.append(rowPlaceholders);
+        }
+        return sql.toString();
+    }
+}
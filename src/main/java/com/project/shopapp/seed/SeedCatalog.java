@@ -0,0 +1,117 @@
+package com.project.shopapp.seed;
+
+import com.github.javafaker.Faker;
+
+import java.util.List;
+import java.util.Map;
+
+// Dữ liệu mẫu theo danh mục, chuyển từ generateFakeProducts cũ trong ProductController
+final class SeedCatalog {
+    // Danh mục gốc; danh mục thứ i dùng CATEGORIES[i % size] làm khóa ảnh/mô tả/tên
+    static final List<String> CATEGORIES = List.of(
+            "điện thoại", "máy tính", "màn hình", "smartwatch", "phụ kiện", "âm thanh", "đồng hồ");
+
+    // Dùng tên file ảnh thực tế đã upload (UUID_prefix)
+    static final Map<String, List<String>> IMAGES = Map.of(
+            "điện thoại", List.of(
+                    "d8f6ac61-9fc9-48f6-a428-ec83263f553e_iphone-16-pro-max-titan-sa-mac-1-638638962337813406-750x500.jpg"
+            ),
+            "máy tính", List.of(
+                    "1b524892-8450-4557-a2b3-ae702a3d4c8e_macbook-air-13-inch-m4-11-638769622719537641-750x500.jpg"
+            ),
+            "màn hình", List.of(
+                    "18964e46-1f3c-4743-8111-4dc22faad8ef_663a91e5-f169-4a3e-9d3f-152ec5ec6f12_asus-lcd-proart-pa247cv-238-inch-full-hd-1-750x500.jpg"
+            ),
+            "smartwatch", List.of(
+                    "b886dac5-1f7e-4417-b561-9088f051ac90_apple-watch-s10-day-milan-nau-1-638646969639246948-750x500.jpg"
+            ),
+            "phụ kiện", List.of(
+                    "be85d72c-52a7-4d21-a4c6-9afe34dbe7fd_chuot-khong-day-logitech-silent-signature-m650-size-m-den-4-638620837131032134-750x500.jpg"
+            ),
+            "âm thanh", List.of(
+                    "4150487f-7c27-41c5-bc5d-a61f945e1ad3_loa-bluetooth-harman-kardon-soundsticks-4-1-750x500.jpg"
+            ),
+            "đồng hồ", List.of(
+                    "b886dac5-1f7e-4417-b561-9088f051ac90_apple-watch-s10-day-milan-nau-1-638646969639246948-750x500.jpg"
+            )
+    );
+
+    // Map mô tả chi tiết sản phẩm cho từng category
+    static final Map<String, List<String>> DESCRIPTIONS = Map.of(
+            "điện thoại", List.of(
+                    "Điện thoại thông minh với màn hình sắc nét và hiệu suất mạnh mẽ. Hỗ trợ 5G và tối ưu cho mọi tác vụ.",
+                    "Máy điện thoại cao cấp với camera tuyệt vời và pin dài, thiết kế sang trọng và màn hình OLED.",
+                    "Sản phẩm điện thoại được trang bị vi xử lý mạnh mẽ, thiết kế mỏng nhẹ, dễ dàng sử dụng cho mọi nhu cầu."
+            ),
+            "máy tính", List.of(
+                    "Máy tính xách tay với cấu hình mạnh mẽ, thiết kế siêu mỏng, dễ dàng mang theo. Phù hợp cho công việc và giải trí.",
+                    "Máy tính với màn hình sắc nét, vi xử lý hiện đại, cung cấp hiệu suất tối đa cho các tác vụ đồ họa và lập trình.",
+                    "Máy tính mạnh mẽ với dung lượng bộ nhớ lớn, màn hình chống chói, đảm bảo công việc không bị gián đoạn."
+            ),
+            "màn hình", List.of(
+                    "Màn hình chất lượng cao với độ phân giải tuyệt vời, màu sắc trung thực và thời gian phản hồi nhanh.",
+                    "Màn hình 4K sắc nét với tần số quét cao, hoàn hảo cho cả làm việc và giải trí chơi game.",
+                    "Màn hình rộng với khả năng hiển thị màu sắc chính xác, lý tưởng cho công việc đồ họa chuyên nghiệp."
+            ),
+            "smartwatch", List.of(
+                    "Đồng hồ thông minh với các tính năng theo dõi sức khỏe và thể dục, màn hình sắc nét và khả năng kết nối tốt.",
+                    "Đồng hồ thông minh đa chức năng với màn hình cảm ứng, theo dõi nhịp tim, và nhiều ứng dụng hỗ trợ.",
+                    "Đồng hồ thông minh thời trang với các tính năng theo dõi sức khỏe, kết nối Bluetooth và thiết kế tiện dụng."
+            ),
+            "phụ kiện", List.of(
+                    "Phụ kiện tiện ích hỗ trợ thiết bị điện tử của bạn, từ sạc nhanh đến các bộ chuyển đổi thông minh.",
+                    "Các loại phụ kiện thiết kế thông minh, hỗ trợ tăng cường hiệu suất cho các thiết bị điện tử.",
+                    "Phụ kiện cao cấp với chất liệu bền bỉ, phù hợp với các thiết bị công nghệ hiện đại."
+            ),
+            "âm thanh", List.of(
+                    "Loa Bluetooth với âm thanh sống động, dễ dàng kết nối và di chuyển, phù hợp cho mọi không gian.",
+                    "Tai nghe không dây với âm thanh chất lượng cao và khả năng chống ồn hiệu quả.",
+                    "Hệ thống âm thanh đa dạng, cho âm thanh rõ ràng và mạnh mẽ, lý tưởng cho giải trí và làm việc."
+            ),
+            "đồng hồ", List.of(
+                    "Đồng hồ cổ điển với thiết kế sang trọng, phù hợp cho các sự kiện đặc biệt.",
+                    "Đồng hồ thể thao mạnh mẽ, với khả năng chống nước và đo nhịp tim chính xác.",
+                    "Đồng hồ thời trang với mặt kính chịu lực, dễ dàng kết hợp với mọi trang phục."
+            )
+    );
+
+    private SeedCatalog() {
+    }
+
+    static String productName(String category, Faker faker) {
+        switch (category) {
+            case "điện thoại":
+                return faker.options().option("iPhone", "Samsung Galaxy", "Xiaomi", "OPPO", "Realme") + " " +
+                        faker.bothify("A##") + " " +
+                        faker.options().option("5G", "Plus", "Pro", "Ultra", "Lite");
+
+            case "máy tính":
+                return faker.options().option("MacBook Air", "Dell XPS", "Asus ROG", "HP Envy", "Lenovo Legion") + " " +
+                        faker.options().option("M3", "Ryzen 7", "i7 12th Gen", "i5 13th Gen");
+
+            case "màn hình":
+                return faker.options().option("Asus ProArt", "LG UltraGear", "Samsung Odyssey") + " " +
+                        faker.number().numberBetween(24, 34) + " inch " +
+                        faker.options().option("Full HD", "2K", "4K");
+
+            case "phụ kiện":
+                return faker.options().option("Cáp Type-C", "Sạc nhanh PD", "Hub USB-C", "Adapter 65W") + " " +
+                        faker.options().option("UGreen", "Anker", "Baseus");
+
+            case "smartwatch":
+                return faker.options().option("Apple Watch", "Galaxy Watch", "Amazfit", "Huawei Watch") + " " +
+                        faker.options().option("S10", "GT4", "Pro 2", "Active 3");
+
+            case "đồng hồ":
+                return faker.options().option("Casio", "Orient", "Citizen", "Seiko", "DW") + " " +
+                        faker.bothify("MTP-###L-7AVDF");
+
+            case "âm thanh":
+                return faker.options().option("Sony WH", "AirPods Pro", "JBL Flip", "Harman Kardon") + " " +
+                        faker.number().numberBetween(2, 5);
+
+            default:
+                return "Sản phẩm " + faker.number().digits(4);
+        }
+    }
+}
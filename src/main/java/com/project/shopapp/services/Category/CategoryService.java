@@ -1,9 +1,15 @@
 package com.project.shopapp.services.Category;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.project.shopapp.components.CacheInvalidationBus;
+import com.project.shopapp.components.TieredCache;
+import com.project.shopapp.components.TieredCacheManager;
 import com.project.shopapp.dtos.CategoryDTO;
 import com.project.shopapp.exceptions.DataNotFoundException;
 import com.project.shopapp.models.Category;
 import com.project.shopapp.repositories.CategoryRepository;
+import com.project.shopapp.utils.TransactionUtils;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,6 +20,21 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CategoryService implements ICategoryService {
     private final CategoryRepository categoryRepository;
+    private final TieredCacheManager tieredCacheManager;
+    private final CacheInvalidationBus invalidationBus;
+    private static final String CATEGORIES_CACHE = "categories";
+    private TieredCache<List<Category>> categoriesCache;
+
+    @PostConstruct
+    public void initCaches() {
+        categoriesCache = tieredCacheManager.create(CATEGORIES_CACHE, new TypeReference<>() {});
+    }
+
+    // Xóa cache trên mọi node sau khi commit
+    private void evictCategoriesCache() {
+        TransactionUtils.afterCommit(categoriesCache::evictAll);
+    }
+
     @Override
     @Transactional
     public Category createCategory(CategoryDTO categoryDTO) {
@@ -21,7 +42,9 @@ public class CategoryService implements ICategoryService {
                 .builder()
                 .name(categoryDTO.getName())
                 .build();
-        return categoryRepository.save(newCategory);
+        Category savedCategory = categoryRepository.save(newCategory);
+        evictCategoriesCache();
+        return savedCategory;
     }
 
     @Override
@@ -32,7 +55,12 @@ public class CategoryService implements ICategoryService {
 
     @Override
     public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+        return categoriesCache.get("all", categoryRepository::findAll);
+    }
+
+    @Override
+    public Long getCategoriesVersion() {
+        return invalidationBus.appliedVersion(CATEGORIES_CACHE);
     }
 
     @Override
@@ -42,6 +70,7 @@ public class CategoryService implements ICategoryService {
         Category existingCategory = getCategoryById(categoryId);
         existingCategory.setName(categoryDTO.getName());
         categoryRepository.save(existingCategory);
+        evictCategoriesCache();
         return existingCategory;
     }
 
@@ -57,6 +86,7 @@ public class CategoryService implements ICategoryService {
             }
         }
         categoryRepository.deleteById(id);
+        evictCategoriesCache();
 
     }
 }
@@ -9,6 +9,8 @@ public interface ICategoryService {
     Category createCategory(CategoryDTO category);
     Category getCategoryById(long id);
     List<Category> getAllCategories();
+    // Version node này đã áp dụng, tăng mỗi khi danh sách category thay đổi; null khi còn thay đổi chưa xóa local
+    Long getCategoriesVersion();
     Category updateCategory(long categoryId, CategoryDTO category);
     void deleteCategory(long id);
 }
@@ -0,0 +1,15 @@
+package com.project.shopapp.services.Image;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface IImageDeletionService {
+    // Ghi vào hàng đợi trong transaction hiện tại: rollback thì không file nào bị xóa
+    void enqueue(Collection<String> imageNames);
+
+    // Xử lý các file đến hạn, trả về số row đã lấy khỏi hàng đợi
+    int drain();
+
+    // Đối chiếu thư mục upload với DB, xếp hàng xóa các file không còn được tham chiếu
+    Map<String, Object> sweepOrphans();
+}
@@ -0,0 +1,27 @@
+package com.project.shopapp.services.Image;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public interface IImageStorageService {
+    // Lưu file theo nội dung, trả về tên ảnh "<sha256>.<ext>" để ghi vào ProductImage.imageUrl
+    String store(MultipartFile file) throws IOException;
+
+    // Lưu song song trên pool giới hạn, giữ thứ tự; lỗi một file => dọn các file đã lưu rồi ném lỗi
+    List<String> storeAll(List<MultipartFile> files) throws Exception;
+
+    // Gọi sau khi row ảnh đã commit: lưu lại file nào đã bị xóa trong lúc upload
+    void ensureStored(List<MultipartFile> files, List<String> imageNames) throws IOException;
+
+    // Xếp hàng xóa các file của upload thất bại, file chỉ bị xóa nếu lúc xử lý không còn ai tham chiếu
+    void releaseAll(List<String> imageNames);
+
+    // Xếp job nền chuyển các file "<UUID>_<tên gốc>" cũ sang kho content-addressed,
+    // trả về jobId (null nếu đang có job chạy)
+    String migrateLegacyFiles();
+
+    Map<String, Object> getMigrationJob(String jobId);
+}
@@ -0,0 +1,37 @@
+package com.project.shopapp.services.Image;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface IImageVariantService {
+    // Các kích thước sinh sẵn, sắp xếp theo chiều rộng tăng dần
+    enum Variant {
+        THUMBNAIL(150), CARD(400), DETAIL(1000);
+
+        private final int width;
+
+        Variant(int width) {
+            this.width = width;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+    }
+
+    // File cần gửi cho client; immutable = false khi đang tạm dùng ảnh gốc thay cho variant chưa có
+    record Selection(String path, boolean immutable) {
+    }
+
+    // Xếp một job sinh variant cho các ảnh, trả về jobId (null nếu hàng đợi đã đầy)
+    String generate(Collection<String> imageNames);
+
+    // Sinh lại variant cho toàn bộ ảnh đang được tham chiếu
+    String regenerateAll();
+
+    Map<String, Object> getJob(String jobId);
+
+    Selection select(String imageName, Integer width, String variantName);
+
+    void deleteVariants(String imageName);
+}
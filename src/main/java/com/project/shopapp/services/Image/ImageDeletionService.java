@@ -0,0 +1,287 @@
+package com.project.shopapp.services.Image;
+
+import com.project.shopapp.components.ImageFileServer;
+import com.project.shopapp.models.ImageDeletion;
+import com.project.shopapp.repositories.ImageDeletionRepository;
+import com.project.shopapp.repositories.ProductImageRepository;
+import com.project.shopapp.repositories.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Durable queue of image files to delete, stored in {@code image_deletions}.
+ * <p>
+ * Rows are written in the same transaction that removes the
+ * {@code product_images} / {@code products} rows. A rollback therefore
+ * never loses a file, and a commit never forgets one. A scheduled worker
+ * drains the queue in batches, outside any request. It deletes a file only
+ * if nothing references it any more: the file is first renamed to
+ * {@code <name>.deleting} and references are counted again, so an upload of
+ * the same content from then on writes a fresh file, and a row committed
+ * before the second count puts the file back. I/O errors are retried with
+ * backoff.
+ * <p>
+ * drain runs on every node. Each batch is claimed with
+ * {@code SELECT ... FOR UPDATE SKIP LOCKED} and leased by pushing
+ * {@code not_before} forward before the files are touched, so two nodes never
+ * work on the same rows; a node that dies mid-batch only delays its rows
+ * until the lease runs out.
+ * <p>
+ * The sweeper walks the upload directory. It queues content-addressed image
+ * files ({@code ab/cd/<sha256>.<ext>}) that no row references, that are not
+ * queued already and that are older than a grace period. Any other file is
+ * left alone. It also removes stale temp files and variants whose original
+ * is gone, and puts back files left parked by a release that did not finish.
+ */
+@Service
+public class ImageDeletionService implements IImageDeletionService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageDeletionService.class);
+    private static final int MAX_ATTEMPTS = 10;
+    private static final int MAX_BATCHES_PER_RUN = 10;
+    private static final int SWEEP_CHUNK = 500;
+    private static final String PARKED_SUFFIX = ".deleting";
+
+    private final ImageDeletionRepository imageDeletionRepository;
+    private final ProductImageRepository productImageRepository;
+    private final ProductRepository productRepository;
+    private final IImageVariantService imageVariantService;
+    private final ImageFileServer imageFileServer;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration lease;
+    private final Duration sweepGrace;
+
+    public ImageDeletionService(ImageDeletionRepository imageDeletionRepository,
+                                ProductImageRepository productImageRepository,
+                                ProductRepository productRepository,
+                                IImageVariantService imageVariantService,
+                                ImageFileServer imageFileServer,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${storage.deletion.batch-size:100}") int batchSize,
+                                @Value("${storage.deletion.lease-minutes:10}") long leaseMinutes,
+                                @Value("${storage.sweeper.grace-minutes:60}") long graceMinutes) {
+        this.imageDeletionRepository = imageDeletionRepository;
+        this.productImageRepository = productImageRepository;
+        this.productRepository = productRepository;
+        this.imageVariantService = imageVariantService;
+        this.imageFileServer = imageFileServer;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.lease = Duration.ofMinutes(leaseMinutes);
+        this.sweepGrace = Duration.ofMinutes(graceMinutes);
+    }
+
+    @Override
+    @Transactional
+    public void enqueue(Collection<String> imageNames) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ImageDeletion> deletions = new ArrayList<>();
+        for (String imageName : new LinkedHashSet<>(imageNames)) {
+            if (imageName == null || imageName.isEmpty()) {
+                continue;
+            }
+            deletions.add(ImageDeletion.builder()
+                    .imageName(imageName)
+                    .createdAt(now)
+                    .notBefore(now)
+                    .build());
+        }
+        imageDeletionRepository.saveAll(deletions);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${storage.deletion.poll-ms:10000}")
+    public int drain() {
+        int drained = 0;
+        for (int batch = 0; batch < MAX_BATCHES_PER_RUN; batch++) {
+            LocalDateTime now = LocalDateTime.now();
+            List<ImageDeletion> due = claim(now);
+            if (due.isEmpty()) {
+                break;
+            }
+            List<Long> finished = new ArrayList<>();
+            List<ImageDeletion> retries = new ArrayList<>();
+            for (ImageDeletion deletion : due) {
+                try {
+                    releaseIfUnused(deletion.getImageName());
+                    finished.add(deletion.getId());
+                } catch (IOException | RuntimeException e) {
+                    int attempts = deletion.getAttempts() + 1;
+                    if (attempts >= MAX_ATTEMPTS) {
+                        // sweeper sẽ xếp hàng lại nếu file vẫn còn
+                        logger.error("Giving up deleting image {} after {} attempts: {}",
+                                deletion.getImageName(), attempts, e.getMessage());
+                        finished.add(deletion.getId());
+                    } else {
+                        deletion.setAttempts(attempts);
+                        deletion.setNotBefore(now.plusMinutes(Math.min(60, 1L << attempts)));
+                        retries.add(deletion);
+                    }
+                }
+            }
+            imageDeletionRepository.deleteAllByIdInBatch(finished);
+            imageDeletionRepository.saveAll(retries);
+            drained += due.size();
+            if (due.size() < batchSize) {
+                break;
+            }
+        }
+        if (drained > 0) {
+            logger.info("Processed {} queued image deletions", drained);
+        }
+        return drained;
+    }
+
+    // Nhận một lô và dời not_before đi một khoảng lease rồi commit ngay, xử lý file ngoài transaction.
+    // Node khác bỏ qua các row này cho tới khi hết lease (node nhận lô chết giữa chừng thì lô được nhận lại).
+    private List<ImageDeletion> claim(LocalDateTime now) {
+        List<ImageDeletion> due = transactionTemplate.execute(status -> {
+            List<ImageDeletion> rows = imageDeletionRepository.findDueForUpdate(now, PageRequest.of(0, batchSize));
+            rows.forEach(row -> row.setNotBefore(now.plus(lease)));
+            return rows;
+        });
+        return due == null ? List.of() : due;
+    }
+
+    private boolean releaseIfUnused(String imageName) throws IOException {
+        if (countReferences(imageName) > 0) {
+            return false;
+        }
+        Path file = imageFileServer.resolveImage(imageName);
+        if (file == null) {
+            return false;
+        }
+        // dời file sang tên khác rồi mới đếm lại: upload trùng nội dung từ lúc này sẽ ghi file mới
+        Path parked = file.resolveSibling(file.getFileName() + PARKED_SUFFIX);
+        try {
+            Files.move(file, parked, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (countReferences(imageName) > 0) {
+            unpark(parked, file);
+            return false;
+        }
+        Files.deleteIfExists(parked);
+        imageFileServer.evict(file);
+        imageVariantService.deleteVariants(imageName);
+        return true;
+    }
+
+    // Trả file về chỗ cũ; nếu đã có upload ghi lại (cùng nội dung) thì bỏ bản đang dời
+    private static void unpark(Path parked, Path file) throws IOException {
+        if (Files.exists(file)) {
+            Files.deleteIfExists(parked);
+            return;
+        }
+        try {
+            Files.move(parked, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            Files.deleteIfExists(parked);
+        }
+    }
+
+    private long countReferences(String imageName) {
+        return productImageRepository.countByImageUrl(imageName) + productRepository.countByThumbnail(imageName);
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${storage.sweeper.initial-delay-ms:600000}",
+            fixedDelayString = "${storage.sweeper.interval-ms:21600000}")
+    public Map<String, Object> sweepOrphans() {
+        Path uploadDir = imageFileServer.getUploadDir();
+        Instant cutoff = Instant.now().minus(sweepGrace);
+        int scanned = 0;
+        int queued = 0;
+        int tempDeleted = 0;
+        int variantsDeleted = 0;
+        List<String> candidates = new ArrayList<>();
+        if (Files.isDirectory(uploadDir)) {
+            try (Stream<Path> files = Files.walk(uploadDir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    // file mới có thể thuộc một upload chưa commit
+                    if (!attributes.isRegularFile() || attributes.lastModifiedTime().toInstant().isAfter(cutoff)) {
+                        continue;
+                    }
+                    Path relative = uploadDir.relativize(file);
+                    String root = relative.getName(0).toString();
+                    String name = file.getFileName().toString();
+                    if (root.equals(".tmp")) {
+                        tempDeleted += Files.deleteIfExists(file) ? 1 : 0;
+                    } else if (root.equals("variants")) {
+                        Path original = imageFileServer.resolveImage(name);
+                        if (original == null || !Files.exists(original)) {
+                            variantsDeleted += Files.deleteIfExists(file) ? 1 : 0;
+                            imageFileServer.evict(file);
+                        }
+                    } else if (name.endsWith(PARKED_SUFFIX)) {
+                        // release dừng giữa chừng: trả file về, lần quét sau xếp hàng lại nếu vẫn không ai dùng
+                        Path original = file.resolveSibling(
+                                name.substring(0, name.length() - PARKED_SUFFIX.length()));
+                        unpark(file, original);
+                    } else if (ImageFileServer.isContentAddressed(name)
+                            && relative.toString().replace('\\', '/').equals(ImageFileServer.storagePath(name))) {
+                        scanned++;
+                        candidates.add(name);
+                        if (candidates.size() >= SWEEP_CHUNK) {
+                            queued += enqueueUnreferenced(candidates);
+                            candidates.clear();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Image sweep of {} stopped early: {}", uploadDir, e.getMessage());
+            }
+        }
+        queued += enqueueUnreferenced(candidates);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("scanned", scanned);
+        result.put("queued", queued);
+        result.put("temp_deleted", tempDeleted);
+        result.put("variants_deleted", variantsDeleted);
+        if (queued > 0 || tempDeleted > 0 || variantsDeleted > 0) {
+            logger.info("Image sweep: {}", result);
+        }
+        return result;
+    }
+
+    private int enqueueUnreferenced(List<String> names) {
+        if (names.isEmpty()) {
+            return 0;
+        }
+        Set<String> referenced = new HashSet<>(productImageRepository.findReferencedImageUrls(names));
+        referenced.addAll(productRepository.findReferencedThumbnails(names));
+        // node khác (hoặc lần quét trước) đã xếp hàng
+        referenced.addAll(imageDeletionRepository.findQueuedImageNames(names));
+        List<String> orphans = names.stream().filter(name -> !referenced.contains(name)).toList();
+        enqueue(orphans);
+        return orphans.size();
+    }
+}
@@ -0,0 +1,356 @@
+package com.project.shopapp.services.Image;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.shopapp.components.ImageFileServer;
+import com.project.shopapp.repositories.ProductImageRepository;
+import com.project.shopapp.repositories.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Content-addressed image store. An upload is streamed to a temp file and
+ * hashed with SHA-256 on the way. It is then moved to
+ * {@code ab/cd/<hash>.<ext>}, or dropped if that file already exists, so
+ * the same photo is stored once however many products use it. Two levels
+ * of 256 shards keep every directory small.
+ * <p>
+ * There is no separate counter. An image's reference count is the number of
+ * {@code product_images.image_url} and {@code products.thumbnail} values
+ * equal to its name, so it cannot drift from the data. Files are deleted
+ * only through the image_deletions queue (ImageDeletionService), which
+ * re-counts references when it gets to them; that includes the files of an
+ * upload that failed, since another upload may have reused them meanwhile.
+ * An upload that reused a file just before it was deleted re-stores it with
+ * {@link #ensureStored} once its rows are committed. Stored files are never
+ * modified, so their mtime and ETag stay stable.
+ * <p>
+ * Legacy files are migrated by a background job that can be polled by id.
+ * <p>
+ * {@link #storeAll} writes a batch of uploads in parallel on a small bounded
+ * pool. It is meant to run before the metadata transaction opens, so no DB
+ * connection is held during file I/O. A full queue is rejected right away
+ * with {@link RejectedExecutionException}.
+ */
+@Service
+public class ImageStorageService implements IImageStorageService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageStorageService.class);
+    private static final String TEMP_DIR = ".tmp";
+
+    private final ImageFileServer imageFileServer;
+    private final IImageVariantService imageVariantService;
+    private final IImageDeletionService imageDeletionService;
+    private final ProductImageRepository productImageRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor uploadExecutor;
+    // một job migrate tại một thời điểm, không có hàng đợi
+    private final ThreadPoolExecutor migrationExecutor;
+    private final long uploadTimeoutMs;
+    private final Cache<String, MigrationJob> migrationJobs = Caffeine.newBuilder()
+            .maximumSize(100)
+            .expireAfterWrite(Duration.ofHours(6))
+            .build();
+
+    private static final class MigrationJob {
+        final String id = UUID.randomUUID().toString();
+        final LocalDateTime createdAt = LocalDateTime.now();
+        final AtomicInteger migrated = new AtomicInteger();
+        final AtomicInteger deduplicated = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        volatile int scanned;
+        volatile String variantJobId;
+        volatile String error;
+        volatile LocalDateTime finishedAt;
+    }
+
+    public ImageStorageService(ImageFileServer imageFileServer,
+                               IImageVariantService imageVariantService,
+                               IImageDeletionService imageDeletionService,
+                               ProductImageRepository productImageRepository,
+                               ProductRepository productRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${storage.upload.threads:4}") int threads,
+                               @Value("${storage.upload.queue-capacity:64}") int queueCapacity,
+                               @Value("${storage.upload.timeout-ms:30000}") long uploadTimeoutMs) {
+        this.imageFileServer = imageFileServer;
+        this.imageVariantService = imageVariantService;
+        this.imageDeletionService = imageDeletionService;
+        this.productImageRepository = productImageRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.uploadTimeoutMs = uploadTimeoutMs;
+        AtomicInteger counter = new AtomicInteger();
+        this.uploadExecutor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-upload-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.migrationExecutor = new ThreadPoolExecutor(
+                1, 1,
+                0L, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-store-migration");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String store(MultipartFile file) throws IOException {
+        try (InputStream input = file.getInputStream()) {
+            return store(input);
+        }
+    }
+
+    @Override
+    public List<String> storeAll(List<MultipartFile> files) throws Exception {
+        List<Future<String>> futures = new ArrayList<>(files.size());
+        try {
+            for (MultipartFile file : files) {
+                futures.add(uploadExecutor.submit(() -> store(file)));
+            }
+        } catch (RejectedExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            releaseAll(collectStored(futures));
+            throw e;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(uploadTimeoutMs);
+        List<String> imageNames = new ArrayList<>(files.size());
+        Exception failure = null;
+        for (Future<String> future : futures) {
+            try {
+                imageNames.add(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                failure = failure != null ? failure : new RejectedExecutionException("Image upload timed out");
+            } catch (ExecutionException e) {
+                failure = failure != null ? failure
+                        : e.getCause() instanceof Exception cause ? cause : e;
+            }
+        }
+        if (failure != null) {
+            // file đã lưu nhưng sẽ không có row nào trỏ tới
+            releaseAll(imageNames);
+            throw failure;
+        }
+        return imageNames;
+    }
+
+    private static List<String> collectStored(List<Future<String>> futures) {
+        List<String> stored = new ArrayList<>();
+        for (Future<String> future : futures) {
+            try {
+                stored.add(future.get());
+            } catch (Exception ignored) {
+                // task bị hủy hoặc lỗi => không có file
+            }
+        }
+        return stored;
+    }
+
+    private String store(InputStream input) throws IOException {
+        Path tempDir = imageFileServer.getUploadDir().resolve(TEMP_DIR);
+        Files.createDirectories(tempDir);
+        // file tạm nằm cùng filesystem với kho => move bên dưới là atomic
+        Path temp = Files.createTempFile(tempDir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (DigestInputStream hashing = new DigestInputStream(input, digest)) {
+                Files.copy(hashing, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String imageName = HexFormat.of().formatHex(digest.digest()) + "." + extension(temp);
+            Path target = imageFileServer.resolveImage(imageName);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // upload cùng nội dung vừa ghi xong trước => dùng lại
+                }
+            }
+            return imageName;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public void ensureStored(List<MultipartFile> files, List<String> imageNames) throws IOException {
+        for (int i = 0; i < files.size() && i < imageNames.size(); i++) {
+            Path file = imageFileServer.resolveImage(imageNames.get(i));
+            if (file != null && !Files.exists(file)) {
+                // file được dedup rồi bị xóa trước khi row của upload này commit
+                logger.info("Image {} was released during upload, storing it again", imageNames.get(i));
+                store(files.get(i));
+            }
+        }
+    }
+
+    // Không xóa ngay: file có thể vừa được upload khác dùng lại, hàng đợi xóa sẽ đếm lại tham chiếu sau
+    @Override
+    public void releaseAll(List<String> imageNames) {
+        if (imageNames.isEmpty()) {
+            return;
+        }
+        try {
+            imageDeletionService.enqueue(imageNames);
+        } catch (RuntimeException e) {
+            // sweeper sẽ tìm ra các file không ai tham chiếu
+            logger.warn("Cannot queue {} images for deletion: {}", imageNames.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public String migrateLegacyFiles() {
+        MigrationJob job = new MigrationJob();
+        try {
+            migrationExecutor.execute(() -> {
+                try {
+                    migrate(job);
+                } catch (RuntimeException e) {
+                    job.error = e.getMessage();
+                    logger.error("Image store migration {} failed", job.id, e);
+                } finally {
+                    job.finishedAt = LocalDateTime.now();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+        migrationJobs.put(job.id, job);
+        return job.id;
+    }
+
+    @Override
+    public Map<String, Object> getMigrationJob(String jobId) {
+        MigrationJob job = migrationJobs.getIfPresent(jobId);
+        if (job == null) {
+            return null;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("job_id", job.id);
+        result.put("scanned", job.scanned);
+        result.put("migrated", job.migrated.get());
+        result.put("deduplicated", job.deduplicated.get());
+        result.put("failed", job.failed.get());
+        result.put("variant_job_id", job.variantJobId);
+        result.put("error", job.error);
+        result.put("done", job.finishedAt != null);
+        result.put("created_at", job.createdAt);
+        result.put("finished_at", job.finishedAt);
+        return result;
+    }
+
+    private void migrate(MigrationJob job) {
+        Path uploadDir = imageFileServer.getUploadDir();
+        List<Path> legacyFiles = new ArrayList<>();
+        if (Files.isDirectory(uploadDir)) {
+            // chỉ các file nằm trực tiếp trong thư mục upload, shard/variants là thư mục con
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(uploadDir, Files::isRegularFile)) {
+                stream.forEach(legacyFiles::add);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot list " + uploadDir, e);
+            }
+        }
+        job.scanned = legacyFiles.size();
+        Set<String> newNames = new LinkedHashSet<>();
+        for (Path legacy : legacyFiles) {
+            String oldName = legacy.getFileName().toString();
+            try {
+                String newName;
+                try (InputStream input = Files.newInputStream(legacy)) {
+                    newName = store(input);
+                }
+                // file cũ chỉ bị xóa sau khi DB đã trỏ sang tên mới => chạy lại an toàn nếu dừng giữa chừng
+                int updated = transactionTemplate.execute(status ->
+                        productImageRepository.renameImageUrl(oldName, newName)
+                                + productRepository.renameThumbnail(oldName, newName));
+                if (!newNames.add(newName)) {
+                    job.deduplicated.incrementAndGet();
+                }
+                Files.delete(legacy);
+                imageFileServer.evict(legacy);
+                imageVariantService.deleteVariants(oldName);
+                job.migrated.incrementAndGet();
+                logger.debug("Migrated image {} -> {} ({} references)", oldName, newName, updated);
+            } catch (IOException | RuntimeException e) {
+                job.failed.incrementAndGet();
+                logger.warn("Cannot migrate image {}: {}", oldName, e.getMessage());
+            }
+        }
+        job.variantJobId = imageVariantService.generate(newNames);
+        logger.info("Image store migration {}: {} migrated, {} deduplicated, {} failed",
+                job.id, job.migrated.get(), job.deduplicated.get(), job.failed.get());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        uploadExecutor.shutdownNow();
+        migrationExecutor.shutdownNow();
+    }
+
+    // Đuôi file theo magic bytes, không tin tên file client gửi lên
+    private static String extension(Path file) throws IOException {
+        String contentType = ImageFileServer.detectContentType(file);
+        return switch (contentType == null ? "" : contentType.toLowerCase(Locale.ROOT)) {
+            case "image/jpeg" -> "jpg";
+            case "image/png" -> "png";
+            case "image/gif" -> "gif";
+            case "image/webp" -> "webp";
+            case "image/bmp" -> "bmp";
+            default -> throw new IOException("Invalid image format");
+        };
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
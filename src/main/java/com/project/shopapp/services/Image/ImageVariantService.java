@@ -0,0 +1,336 @@
+package com.project.shopapp.services.Image;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.project.shopapp.components.ImageFileServer;
+import com.project.shopapp.repositories.ProductImageRepository;
+import com.project.shopapp.repositories.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates fixed-width copies of uploaded images (see {@link Variant}) in
+ * the background with javax.imageio. They are stored as
+ * {@code <upload-dir>/variants/<width>/<storage path>}, using the same hash
+ * shards as the originals.
+ * <p>
+ * Jobs queue on a single dispatcher thread and fan out to a fixed worker
+ * pool. The worker queue is bounded. When it is full, the dispatcher runs
+ * the task itself, which throttles a large job without ever blocking a
+ * request thread. Each job counts processed and failed images and can be
+ * polled by id.
+ */
+@Service
+public class ImageVariantService implements IImageVariantService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+    private static final String VARIANTS_DIR = "variants";
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final ImageFileServer imageFileServer;
+    private final ProductImageRepository productImageRepository;
+    private final ProductRepository productRepository;
+    // ảnh vài trăm KB có thể khai báo kích thước hàng tỉ pixel, giải nén ra sẽ hết heap
+    private final long maxPixels;
+    private final ThreadPoolExecutor dispatcher;
+    private final ThreadPoolExecutor workers;
+    private final Cache<String, Job> jobs = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(java.time.Duration.ofHours(6))
+            .build();
+
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final List<String> imageNames;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        final AtomicInteger processed = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        volatile LocalDateTime finishedAt;
+
+        Job(List<String> imageNames) {
+            this.imageNames = imageNames;
+        }
+
+        void completeOne(boolean success) {
+            if (!success) {
+                failed.incrementAndGet();
+            }
+            int done = processed.incrementAndGet();
+            int total = imageNames.size();
+            // log tiến độ mỗi 10%
+            if (total >= 20 && done % Math.max(1, total / 10) == 0) {
+                logger.info("Image variant job {}: {}/{} done, {} failed", id, done, total, failed.get());
+            }
+            if (done == total) {
+                finishedAt = LocalDateTime.now();
+                logger.info("Image variant job {} finished: {} images, {} failed", id, total, failed.get());
+            }
+        }
+    }
+
+    public ImageVariantService(ImageFileServer imageFileServer,
+                               ProductImageRepository productImageRepository,
+                               ProductRepository productRepository,
+                               @Value("${image.variants.threads:0}") int threads,
+                               @Value("${image.variants.queue-capacity:64}") int queueCapacity,
+                               @Value("${image.variants.max-pixels:40000000}") long maxPixels) {
+        this.imageFileServer = imageFileServer;
+        this.maxPixels = maxPixels;
+        this.productImageRepository = productImageRepository;
+        this.productRepository = productRepository;
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // hàng đợi đầy => dispatcher tự làm, tạo back-pressure cho job lớn
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.dispatcher = new ThreadPoolExecutor(
+                1, 1,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String generate(Collection<String> imageNames) {
+        List<String> names = new ArrayList<>(new LinkedHashSet<>(imageNames));
+        if (names.isEmpty()) {
+            return null;
+        }
+        Job job = new Job(names);
+        try {
+            dispatcher.execute(() -> {
+                for (String name : names) {
+                    workers.execute(() -> job.completeOne(generateVariants(name)));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // ảnh vẫn dùng được, chỉ là chưa có bản thu nhỏ
+            logger.warn("Image variant queue is full, skipped {} images", names.size());
+            return null;
+        }
+        jobs.put(job.id, job);
+        return job.id;
+    }
+
+    @Override
+    public String regenerateAll() {
+        Collection<String> names = new LinkedHashSet<>(productImageRepository.findAllImageUrls());
+        names.addAll(productRepository.findAllThumbnails());
+        return generate(names);
+    }
+
+    @Override
+    public Map<String, Object> getJob(String jobId) {
+        Job job = jobs.getIfPresent(jobId);
+        if (job == null) {
+            return null;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("job_id", job.id);
+        result.put("total", job.imageNames.size());
+        result.put("processed", job.processed.get());
+        result.put("failed", job.failed.get());
+        result.put("done", job.finishedAt != null);
+        result.put("created_at", job.createdAt);
+        result.put("finished_at", job.finishedAt);
+        return result;
+    }
+
+    @Override
+    public Selection select(String imageName, Integer width, String variantName) {
+        Integer targetWidth = width;
+        if (variantName != null) {
+            for (Variant variant : Variant.values()) {
+                if (variant.name().equalsIgnoreCase(variantName)) {
+                    targetWidth = variant.getWidth();
+                }
+            }
+        }
+        if (targetWidth == null || targetWidth <= 0) {
+            return new Selection(ImageFileServer.storagePath(imageName), true);
+        }
+        // variant nhỏ nhất mà vẫn >= chiều rộng yêu cầu
+        boolean wanted = false;
+        for (Variant variant : Variant.values()) {
+            if (variant.getWidth() < targetWidth) {
+                continue;
+            }
+            wanted = true;
+            String path = variantPath(variant, imageName);
+            Path file = imageFileServer.resolve(path);
+            if (file != null && Files.isRegularFile(file)) {
+                return new Selection(path, true);
+            }
+        }
+        // yêu cầu lớn hơn mọi variant => ảnh gốc là đúng; ngược lại variant có thể xuất hiện sau
+        return new Selection(ImageFileServer.storagePath(imageName), !wanted);
+    }
+
+    @Override
+    public void deleteVariants(String imageName) {
+        for (Variant variant : Variant.values()) {
+            Path file = imageFileServer.resolve(variantPath(variant, imageName));
+            if (file == null) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(file);
+                imageFileServer.evict(file);
+            } catch (IOException e) {
+                logger.warn("Cannot delete image variant {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private static String variantPath(Variant variant, String imageName) {
+        return VARIANTS_DIR + "/" + variant.getWidth() + "/" + ImageFileServer.storagePath(imageName);
+    }
+
+    private boolean generateVariants(String imageName) {
+        Path source = imageFileServer.resolveImage(imageName);
+        if (source == null || !Files.isRegularFile(source)) {
+            return false;
+        }
+        try {
+            BufferedImage original = read(source);
+            if (original == null) {
+                // định dạng ImageIO không đọc được (vd. webp)
+                return false;
+            }
+            boolean alpha = original.getColorModel().hasAlpha();
+            for (Variant variant : Variant.values()) {
+                // ảnh gốc đã nhỏ hơn => không phóng to, client sẽ nhận ảnh gốc
+                if (original.getWidth() <= variant.getWidth()) {
+                    break;
+                }
+                Path target = imageFileServer.resolve(variantPath(variant, imageName));
+                if (target == null || Files.exists(target)) {
+                    continue;
+                }
+                write(resize(original, variant.getWidth(), alpha), alpha, target);
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Cannot generate variants for {}: {}", imageName, e.getMessage());
+            return false;
+        }
+    }
+
+    // Đọc kích thước từ header trước, chỉ giải nén khi số pixel không vượt quá maxPixels
+    private BufferedImage read(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new IOException("Image is " + reader.getWidth(0) + "x" + reader.getHeight(0)
+                            + ", more than " + maxPixels + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Thu nhỏ từng bước một nửa để ảnh không bị răng cưa khi tỉ lệ lớn
+    private static BufferedImage resize(BufferedImage source, int width, boolean alpha) {
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            graphics.dispose();
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    // Ghi ra file tạm rồi move để client không bao giờ đọc phải file ghi dở
+    private static void write(BufferedImage image, boolean alpha, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".variant-", ".tmp");
+        try {
+            if (alpha) {
+                ImageIO.write(image, "png", temp.toFile());
+            } else {
+                ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                    writer.setOutput(output);
+                    writer.write(null, new IIOImage(image, null, null), param);
+                } finally {
+                    writer.dispose();
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        dispatcher.shutdownNow();
+        workers.shutdownNow();
+    }
+}
@@ -3,6 +3,7 @@ package com.project.shopapp.services.Order;
 import com.project.shopapp.dtos.OrderDTO;
 import com.project.shopapp.exceptions.DataNotFoundException;
 import com.project.shopapp.models.Order;
+import com.project.shopapp.responses.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -16,4 +17,9 @@ public interface IOrderService {
     List<Order> findByUserId(Long userId);
     Page<Order> getOrdersByKeyword(String keyword, Pageable pageable);
     Page<Order> getUserOrders(Long userId, String keyword, Pageable pageable);
+    // Phân trang bằng cursor: after rỗng = trang đầu
+    CursorPage<Order> getOrdersByKeywordAfter(String keyword, String after, int limit) throws Exception;
+    CursorPage<Order> getUserOrdersAfter(Long userId, String keyword, String after, int limit) throws Exception;
+    long countOrdersByKeyword(String keyword);
+    long countUserOrders(Long userId, String keyword);
 }
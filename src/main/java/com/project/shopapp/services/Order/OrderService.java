@@ -10,9 +10,13 @@ import com.project.shopapp.repositories.OrderDetailRepository;
 import com.project.shopapp.repositories.OrderRepository;
 import com.project.shopapp.repositories.ProductRepository;
 import com.project.shopapp.repositories.UserRepository;
+import com.project.shopapp.components.CountCache;
+import com.project.shopapp.responses.CursorPage;
+import com.project.shopapp.utils.CursorUtils;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,9 +31,13 @@ public class OrderService implements IOrderService {
     private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
     private final OrderDetailRepository orderDetailRepository;
+    private final CountCache countCache;
 
     private final ModelMapper modelMapper;
 
+    private record OrderCursor(LocalDate orderDate, Long id) {
+    }
+
     @Override
     @Transactional
     public Order createOrder(OrderDTO orderDTO) throws Exception {
@@ -38,10 +46,7 @@ public class OrderService implements IOrderService {
                 .findById(orderDTO.getUserId())
                 .orElseThrow(() -> new DataNotFoundException("Cannot find user with id: "+orderDTO.getUserId()));
 
-        // map giá trị
-        modelMapper.typeMap(OrderDTO.class, Order.class)
-                .addMappings(mapper -> mapper.skip(Order::setId));
-
+        // map giá trị (type map khai báo sẵn trong MapperConfiguration)
         Order order = new Order();
         modelMapper.map(orderDTO, order);
         order.setUser(user);
@@ -58,6 +63,16 @@ public class OrderService implements IOrderService {
         order.setTotalMoney(orderDTO.getTotalMoney());
         orderRepository.save(order);
 
+        // Lấy toàn bộ sản phẩm trong giỏ bằng một câu query (id trùng chỉ lấy một lần)
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (CartItemDTO cartItemDTO : orderDTO.getCartItems()) {
+            productIds.add(cartItemDTO.getProductId());
+        }
+        Map<Long, Product> productsById = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            productsById.put(product.getId(), product);
+        }
+
         // Tạo danh sách các đối tượng OrderDetail từ cartItems
         List<OrderDetail> orderDetails = new ArrayList<>();
         for (CartItemDTO cartItemDTO : orderDTO.getCartItems()) {
@@ -69,10 +84,10 @@ public class OrderService implements IOrderService {
             Long productId = cartItemDTO.getProductId();
             int quantity = cartItemDTO.getQuantity();
 
-            // Tìm thông tin sản phẩm từ cơ sở dữ liệu
-            Product product = productRepository.findById(productId)
-                    .orElseThrow(() -> new DataNotFoundException("Product not found with id: " + productId));
-
+            Product product = productsById.get(productId);
+            if (product == null) {
+                throw new DataNotFoundException("Product not found with id: " + productId);
+            }
 
             orderDetail.setProduct(product);
             orderDetail.setNumberOfProducts(quantity);
@@ -84,7 +99,7 @@ public class OrderService implements IOrderService {
         }
 
 
-        // Lưu danh sách OrderDetail vào cơ sở dữ liệu
+        // Lưu danh sách OrderDetail vào cơ sở dữ liệu (JDBC batch, xem hibernate.jdbc.batch_size)
         orderDetailRepository.saveAll(orderDetails);
         return order;
     }
@@ -92,8 +107,6 @@ public class OrderService implements IOrderService {
 
     @Transactional
     public Order updateOrderWithDetails(OrderWithDetailsDTO orderWithDetailsDTO) {
-        modelMapper.typeMap(OrderWithDetailsDTO.class, Order.class)
-                .addMappings(mapper -> mapper.skip(Order::setId));
         Order order = new Order();
         modelMapper.map(orderWithDetailsDTO, order);
         Order savedOrder = orderRepository.save(order);
@@ -126,9 +139,6 @@ public class OrderService implements IOrderService {
         User existingUser = userRepository.findById(
                 orderDTO.getUserId()).orElseThrow(() ->
                 new DataNotFoundException("Cannot find user with id: " + id));
-        // Tạo một luồng bảng ánh xạ riêng để kiểm soát việc ánh xạ
-        modelMapper.typeMap(OrderDTO.class, Order.class)
-                .addMappings(mapper -> mapper.skip(Order::setId));
         // Cập nhật các trường của đơn hàng từ orderDTO
         modelMapper.map(orderDTO, order);
         order.setUser(existingUser);
@@ -162,4 +172,50 @@ public class OrderService implements IOrderService {
         }
         return orderRepository.findByUserId(userId, pageable);
     }
+
+    @Override
+    public CursorPage<Order> getOrdersByKeywordAfter(String keyword, String after, int limit) throws Exception {
+        int pageSize = Math.max(limit, 1);
+        long afterId = after.isEmpty() ? 0L : CursorUtils.decode(after, 1, values -> Long.parseLong(values[0]));
+        List<Order> orders = orderRepository.findByKeywordAfter(keyword, afterId, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = orders.subList(0, pageSize);
+        }
+        return new CursorPage<>(orders,
+                hasMore ? CursorUtils.encode(orders.get(orders.size() - 1).getId()) : null);
+    }
+
+    @Override
+    public CursorPage<Order> getUserOrdersAfter(Long userId, String keyword, String after, int limit) throws Exception {
+        int pageSize = Math.max(limit, 1);
+        String normalizedKeyword = keyword == null ? "" : keyword;
+        // cursor = (orderDate, id) của đơn cuối trang trước, orderDate NULL được mã hóa thành chuỗi rỗng
+        OrderCursor cursor = after.isEmpty() ? null : CursorUtils.decode(after, 2,
+                values -> new OrderCursor(values[0].isEmpty() ? null : LocalDate.parse(values[0]),
+                        Long.parseLong(values[1])));
+        List<Order> orders = orderRepository.findUserOrdersAfter(userId, normalizedKeyword,
+                cursor != null ? cursor.orderDate() : null,
+                cursor != null ? cursor.id() : null,
+                PageRequest.of(0, pageSize + 1));
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = orders.subList(0, pageSize);
+        }
+        Order last = orders.isEmpty() ? null : orders.get(orders.size() - 1);
+        return new CursorPage<>(orders,
+                hasMore ? CursorUtils.encode(last.getOrderDate() == null ? "" : last.getOrderDate(), last.getId()) : null);
+    }
+
+    @Override
+    public long countOrdersByKeyword(String keyword) {
+        return countCache.get("orders:" + keyword, () -> orderRepository.countByKeyword(keyword));
+    }
+
+    @Override
+    public long countUserOrders(Long userId, String keyword) {
+        String normalizedKeyword = keyword == null ? "" : keyword;
+        return countCache.get("user-orders:" + userId + ":" + normalizedKeyword,
+                () -> orderRepository.countUserOrders(userId, normalizedKeyword));
+    }
 }
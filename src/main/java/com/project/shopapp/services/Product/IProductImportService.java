@@ -0,0 +1,13 @@
+package com.project.shopapp.services.Product;
+
+import com.project.shopapp.responses.Product.ProductImportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface IProductImportService {
+    enum Format { CSV, NDJSON }
+
+    // Đọc stream từng dòng, upsert theo tên sản phẩm, không giữ cả file trong bộ nhớ
+    ProductImportResponse importProducts(InputStream input, Format format) throws IOException;
+}
@@ -1,31 +1,45 @@
 package com.project.shopapp.services.Product;
 import com.project.shopapp.dtos.ProductDTO;
 import com.project.shopapp.dtos.ProductImageDTO;
+import com.project.shopapp.responses.CursorPage;
 import com.project.shopapp.responses.Product.ProductResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import com.project.shopapp.models.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface IProductService {
     Product createProduct(ProductDTO productDTO) throws Exception;
     Product getProductById(long id) throws Exception;
+    Optional<LocalDateTime> getProductUpdatedAt(long id);
+    // Đổi mỗi khi node này áp dụng một thay đổi sản phẩm, null khi chưa chắc dữ liệu local đã mới
+    String getCatalogVersion();
     public Page<ProductResponse> getAllProducts(String keyword,
                                                 Long categoryId, PageRequest pageRequest);
+    // Phân trang bằng cursor: after rỗng = trang đầu
+    CursorPage<ProductResponse> getProductsAfter(String keyword, Long categoryId,
+                                                 String after, int limit) throws Exception;
+    long countProducts(String keyword, Long categoryId);
     Product updateProduct(long id, ProductDTO productDTO) throws Exception;
     void deleteProduct(long id);
     boolean existsByName(String name);
     ProductImage createProductImage(
             Long productId,
             ProductImageDTO productImageDTO) throws Exception;
+    // Xóa cache sản phẩm/featured trên mọi node, dùng sau khi ghi hàng loạt
+    void evictCatalogCaches();
+    // Thêm nhiều ảnh trong một transaction ngắn: một lần đếm, một batch insert
+    List<ProductImage> createProductImages(Long productId, List<String> imageUrls) throws Exception;
     // Trong IProductService
     void deleteProductImage(Long imageId) throws Exception;
 
-    List<Product> findProductsByIds(List<Long> productIds);
+    List<ProductResponse> findProductsByIds(List<Long> productIds) throws Exception;
     
     // Featured products method
-    List<Product> getFeaturedProducts(int limit);
+    List<ProductResponse> getFeaturedProducts(int limit);
 
-    Product getFeaturedProduct();
+    ProductResponse getFeaturedProduct();
 }
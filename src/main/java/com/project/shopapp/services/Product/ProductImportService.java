@@ -0,0 +1,453 @@
+package com.project.shopapp.services.Product;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.shopapp.dtos.ProductDTO;
+import com.project.shopapp.models.Category;
+import com.project.shopapp.models.Product;
+import com.project.shopapp.repositories.CategoryRepository;
+import com.project.shopapp.repositories.ProductRepository;
+import com.project.shopapp.responses.Product.ProductImportResponse;
+import com.project.shopapp.services.Search.IProductSearchService;
+import com.project.shopapp.utils.CsvReader;
+import com.project.shopapp.utils.TransactionUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product import from CSV (with a header row) or NDJSON.
+ * <p>
+ * Rows are parsed one at a time from the request stream. Valid rows are
+ * collected into chunks of {@code product-import.chunk-size}, and each
+ * chunk is written in its own short transaction. Existing products are
+ * matched by name (case-insensitive) with one IN query per chunk and
+ * updated through JPA, which batches the UPDATEs. Products keep IDENTITY ids,
+ * which Hibernate cannot batch, so new products are inserted with one
+ * JdbcTemplate batch and read back by name. The persistence context is
+ * flushed and cleared after every chunk, so memory stays flat however large
+ * the file is. Categories are loaded once into a map. After each commit the
+ * products of the chunk are re-indexed with a single search-index message.
+ * <p>
+ * Invalid rows are reported with their row number, and the rest of the file
+ * continues. If a chunk fails in the database, all of its rows are reported
+ * as failed.
+ */
+@Service
+public class ProductImportService implements IProductImportService {
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final IProductService productService;
+    private final IProductSearchService productSearchService;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int chunkSize;
+    private final int maxErrors;
+
+    public ProductImportService(ProductRepository productRepository,
+                                CategoryRepository categoryRepository,
+                                IProductService productService,
+                                IProductSearchService productSearchService,
+                                EntityManager entityManager,
+                                JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                Validator validator,
+                                @Value("${product-import.chunk-size:500}") int chunkSize,
+                                @Value("${product-import.max-errors:100}") int maxErrors) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.productService = productService;
+        this.productSearchService = productSearchService;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.maxErrors = maxErrors;
+    }
+
+    private record PendingRow(long row, ProductDTO product, Category category) {
+    }
+
+    // Một dòng đã tách thành cột -> giá trị, chưa kiểm tra kiểu
+    private record RawRow(long row, Map<String, String> values, String error) {
+    }
+
+    private static final class Progress {
+        long totalRows;
+        long created;
+        long updated;
+        long failed;
+        final List<ProductImportResponse.RowError> errors = new ArrayList<>();
+        boolean errorsTruncated;
+    }
+
+    @Override
+    public ProductImportResponse importProducts(InputStream input, Format format) throws IOException {
+        long start = System.nanoTime();
+        Map<Long, Category> categories = categoryRepository.findAll().stream()
+                .collect(Collectors.toMap(Category::getId, category -> category));
+        Progress progress = new Progress();
+        List<PendingRow> pending = new ArrayList<>(chunkSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 64 * 1024);
+        Iterator<RawRow> rows = format == Format.CSV ? csvRows(reader) : ndjsonRows(reader);
+        while (true) {
+            RawRow raw;
+            try {
+                if (!rows.hasNext()) {
+                    break;
+                }
+                raw = rows.next();
+            } catch (UncheckedIOException e) {
+                // file hỏng giữa chừng (vd. thiếu dấu " đóng): dừng đọc nhưng vẫn ghi các dòng hợp lệ trước đó
+                fail(progress, progress.totalRows + 1, e.getCause().getMessage());
+                break;
+            }
+            progress.totalRows++;
+            if (raw.error() != null) {
+                fail(progress, raw.row(), raw.error());
+                continue;
+            }
+            String error;
+            try {
+                ProductDTO product = toProduct(raw.values());
+                error = validate(product);
+                Category category = product.getCategoryId() == null ? null : categories.get(product.getCategoryId());
+                if (error == null && category == null) {
+                    error = "Cannot find category with id: " + product.getCategoryId();
+                }
+                if (error == null) {
+                    pending.add(new PendingRow(raw.row(), product, category));
+                }
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+            if (error != null) {
+                fail(progress, raw.row(), error);
+            }
+            if (pending.size() >= chunkSize) {
+                writeChunk(pending, progress);
+                pending.clear();
+            }
+        }
+        if (!pending.isEmpty()) {
+            writeChunk(pending, progress);
+        }
+        if (progress.created + progress.updated > 0) {
+            productService.evictCatalogCaches();
+        }
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        logger.info("Imported products: {} rows, {} created, {} updated, {} failed in {} ms",
+                progress.totalRows, progress.created, progress.updated, progress.failed, elapsedMs);
+        return ProductImportResponse.builder()
+                .totalRows(progress.totalRows)
+                .created(progress.created)
+                .updated(progress.updated)
+                .failed(progress.failed)
+                .errors(progress.errors)
+                .errorsTruncated(progress.errorsTruncated)
+                .elapsedMs(elapsedMs)
+                .rowsPerSecond(Math.round(progress.totalRows * 1000.0 / elapsedMs * 10) / 10.0)
+                .build();
+    }
+
+    private void writeChunk(List<PendingRow> chunk, Progress progress) {
+        long[] counts = new long[2];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<String> names = new LinkedHashSet<>();
+                chunk.forEach(row -> names.add(row.product().getName()));
+                // tên trùng trong DB => lấy sản phẩm có id nhỏ nhất
+                Map<String, Product> byName = new HashMap<>();
+                for (Product existing : productRepository.findByNameIn(names)) {
+                    byName.merge(nameKey(existing.getName()), existing,
+                            (a, b) -> a.getId() <= b.getId() ? a : b);
+                }
+                Set<Long> existingIds = new HashSet<>();
+                byName.values().forEach(product -> existingIds.add(product.getId()));
+                List<Product> created = new ArrayList<>();
+                for (PendingRow row : chunk) {
+                    String key = nameKey(row.product().getName());
+                    Product product = byName.get(key);
+                    if (product == null) {
+                        product = newProduct(row);
+                        created.add(product);
+                        byName.put(key, product);
+                        counts[0]++;
+                    } else {
+                        // tên lặp lại trong cùng chunk thì sửa luôn sản phẩm chưa insert
+                        applyTo(product, row);
+                        counts[1]++;
+                    }
+                }
+                // gửi batch UPDATE rồi bỏ entity khỏi persistence context
+                entityManager.flush();
+                entityManager.clear();
+                insertAll(created);
+                // đọc lại sản phẩm mới để có id, không cần đọc lại sản phẩm đã có
+                List<Product> touched = new ArrayList<>(byName.values().stream()
+                        .filter(product -> product.getId() != null)
+                        .toList());
+                if (!created.isEmpty()) {
+                    for (Product product : productRepository.findByNameIn(
+                            created.stream().map(Product::getName).toList())) {
+                        if (existingIds.add(product.getId())) {
+                            touched.add(product);
+                        }
+                    }
+                    entityManager.clear();
+                }
+                // một message reindex cho cả chunk
+                TransactionUtils.afterCommit(() -> productSearchService.indexAll(touched));
+            });
+            progress.created += counts[0];
+            progress.updated += counts[1];
+        } catch (RuntimeException e) {
+            logger.warn("Product import chunk of {} rows failed: {}", chunk.size(), e.getMessage());
+            for (PendingRow row : chunk) {
+                fail(progress, row.row(), "Batch failed: " + e.getMessage());
+            }
+        }
+    }
+
+    // products dùng IDENTITY nên Hibernate không batch được INSERT; rewriteBatchedStatements gộp thành INSERT nhiều dòng
+    private void insertAll(List<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(products.size());
+        for (Product product : products) {
+            rows.add(new Object[]{
+                    product.getName(),
+                    product.getPrice(),
+                    product.getThumbnail(),
+                    product.getDescription(),
+                    product.getQuantity(),
+                    product.getStock_quantity(),
+                    product.getCategory() == null ? null : product.getCategory().getId(),
+                    now,
+                    now
+            });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO products (name, price, thumbnail, description, quantity, stock_quantity, "
+                + "category_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private static Product newProduct(PendingRow row) {
+        ProductDTO dto = row.product();
+        return Product.builder()
+                .name(dto.getName())
+                .price(dto.getPrice())
+                .thumbnail(dto.getThumbnail())
+                .description(dto.getDescription())
+                .quantity(dto.getQuantity() != null ? dto.getQuantity() : 0)
+                .stock_quantity(dto.getStock_quantity() != null ? dto.getStock_quantity() : 0)
+                .category(row.category())
+                .build();
+    }
+
+    // Cột không có trong file => giữ giá trị cũ
+    private static void applyTo(Product product, PendingRow row) {
+        ProductDTO dto = row.product();
+        product.setName(dto.getName());
+        product.setCategory(row.category());
+        if (dto.getPrice() != null) {
+            product.setPrice(dto.getPrice());
+        }
+        if (dto.getThumbnail() != null) {
+            product.setThumbnail(dto.getThumbnail());
+        }
+        if (dto.getDescription() != null) {
+            product.setDescription(dto.getDescription());
+        }
+        if (dto.getQuantity() != null) {
+            product.setQuantity(dto.getQuantity());
+        }
+        if (dto.getStock_quantity() != null) {
+            product.setStock_quantity(dto.getStock_quantity());
+        }
+    }
+
+    private static String nameKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private String validate(ProductDTO product) {
+        Set<ConstraintViolation<ProductDTO>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+    }
+
+    private void fail(Progress progress, long row, String message) {
+        progress.failed++;
+        if (progress.errors.size() < maxErrors) {
+            progress.errors.add(new ProductImportResponse.RowError(row, message));
+        } else {
+            progress.errorsTruncated = true;
+        }
+    }
+
+    private static ProductDTO toProduct(Map<String, String> values) {
+        return ProductDTO.builder()
+                .name(trimToNull(values.get("name")))
+                .price(parse(values, "price", Float::valueOf))
+                .thumbnail(trimToNull(values.get("thumbnail")))
+                .description(values.get("description"))
+                .quantity(parse(values, "quantity", Integer::valueOf))
+                .stock_quantity(parse(values, "stock_quantity", Integer::valueOf))
+                .categoryId(parse(values, values.containsKey("category_id") ? "category_id" : "categoryid", Long::valueOf))
+                .build();
+    }
+
+    private static <T> T parse(Map<String, String> values, String column, Function<String, T> parser) {
+        String value = trimToNull(values.get(column));
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    // CSV: dòng đầu là header, tên cột không phân biệt hoa thường
+    private static Iterator<RawRow> csvRows(BufferedReader reader) throws IOException {
+        CsvReader csv = new CsvReader(reader, ',');
+        List<String> header = csv.next();
+        if (header == null) {
+            return Collections.emptyIterator();
+        }
+        List<String> columns = header.stream()
+                .map(column -> column.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT))
+                .toList();
+        return new RowIterator() {
+            @Override
+            RawRow read() throws IOException {
+                List<String> record = csv.next();
+                if (record == null) {
+                    return null;
+                }
+                long row = csv.getRecordLine();
+                if (record.size() != columns.size()) {
+                    return new RawRow(row, null,
+                            "Expected " + columns.size() + " columns but found " + record.size());
+                }
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < columns.size(); i++) {
+                    values.put(columns.get(i), record.get(i));
+                }
+                return new RawRow(row, values, null);
+            }
+        };
+    }
+
+    // NDJSON: mỗi dòng một object JSON, dòng trống bị bỏ qua
+    private Iterator<RawRow> ndjsonRows(BufferedReader reader) {
+        return new RowIterator() {
+            private long line;
+
+            @Override
+            RawRow read() throws IOException {
+                String text;
+                do {
+                    text = reader.readLine();
+                    line++;
+                } while (text != null && text.isBlank());
+                if (text == null) {
+                    return null;
+                }
+                try {
+                    JsonNode node = objectMapper.readTree(text);
+                    if (!node.isObject()) {
+                        return new RawRow(line, null, "Expected a JSON object");
+                    }
+                    Map<String, String> values = new HashMap<>();
+                    node.fields().forEachRemaining(field -> values.put(
+                            field.getKey().toLowerCase(Locale.ROOT),
+                            field.getValue().isNull() ? null : field.getValue().asText()));
+                    return new RawRow(line, values, null);
+                } catch (JsonProcessingException e) {
+                    return new RawRow(line, null, "Invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+        };
+    }
+
+    private abstract static class RowIterator implements Iterator<RawRow> {
+        private RawRow next;
+        private boolean done;
+
+        abstract RawRow read() throws IOException;
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                try {
+                    next = read();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                done = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public RawRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            RawRow row = next;
+            next = null;
+            return row;
+        }
+    }
+}
@@ -10,18 +10,35 @@ import com.project.shopapp.models.ProductImage;
 import com.project.shopapp.repositories.CategoryRepository;
 import com.project.shopapp.repositories.ProductImageRepository;
 import com.project.shopapp.repositories.ProductRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.project.shopapp.components.CacheInvalidationBus;
+import com.project.shopapp.components.CountCache;
+import com.project.shopapp.components.TieredCache;
+import com.project.shopapp.components.TieredCacheManager;
+import com.project.shopapp.responses.CursorPage;
 import com.project.shopapp.responses.Product.ProductResponse;
+import com.project.shopapp.services.Image.IImageDeletionService;
+import com.project.shopapp.services.Search.IProductSearchService;
+import com.project.shopapp.services.Search.ProductSearchService;
+import com.project.shopapp.utils.CursorUtils;
+import com.project.shopapp.utils.TransactionUtils;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,10 +46,47 @@ public class ProductService implements IProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ProductImageRepository productImageRepository;
+    private final IProductSearchService productSearchService;
+    private final CountCache countCache;
+    private final TieredCacheManager tieredCacheManager;
+    private final CacheInvalidationBus invalidationBus;
+    private final IImageDeletionService imageDeletionService;
 
-    // Inject RedisTemplate
-    private final RedisTemplate<String, Object> redisTemplate;
-    private static final String FEATURED_PRODUCT_KEY = "featured_product";
+    private static final int MAX_FEATURED_LIMIT = 100;
+    public static final int MAX_IDS_PER_REQUEST = 100;
+    private static final String PRODUCT_CACHE = "product";
+    private static final String FEATURED_PRODUCT_CACHE = "featured_product";
+    private static final String FEATURED_PRODUCTS_CACHE = "featured_products";
+    private TieredCache<ProductResponse> productCache;
+    private TieredCache<ProductResponse> featuredProductCache;
+    private TieredCache<List<ProductResponse>> featuredProductsCache;
+
+    @PostConstruct
+    public void initCaches() {
+        productCache = tieredCacheManager.create(PRODUCT_CACHE, new TypeReference<>() {});
+        featuredProductCache = tieredCacheManager.create(FEATURED_PRODUCT_CACHE, new TypeReference<>() {});
+        featuredProductsCache = tieredCacheManager.create(FEATURED_PRODUCTS_CACHE, new TypeReference<>() {});
+    }
+
+    // Sản phẩm thay đổi => xóa cache của sản phẩm đó và cache sản phẩm nổi bật sau khi commit
+    private void evictProductCaches(Long productId) {
+        TransactionUtils.afterCommit(() -> {
+            if (productId != null) {
+                productCache.evict(String.valueOf(productId));
+            }
+            featuredProductCache.evictAll();
+            featuredProductsCache.evictAll();
+        });
+    }
+
+    @Override
+    public void evictCatalogCaches() {
+        TransactionUtils.afterCommit(() -> {
+            productCache.evictAll();
+            featuredProductCache.evictAll();
+            featuredProductsCache.evictAll();
+        });
+    }
 
     @Override
     @Transactional
@@ -53,7 +107,10 @@ public class ProductService implements IProductService {
                 .category(existingCategory)
                 .build();
 
-        return productRepository.save(newProduct);
+        Product savedProduct = productRepository.save(newProduct);
+        TransactionUtils.afterCommit(() -> productSearchService.index(savedProduct));
+        evictProductCaches(savedProduct.getId());
+        return savedProduct;
     }
 
     @Override
@@ -65,15 +122,66 @@ public class ProductService implements IProductService {
         return product;
     }
 
-    //  TÌM NHIỀU SẢN PHẨM THEO DANH SÁCH ID
     @Override
-    public List<Product> findProductsByIds(List<Long> productIds) {
-        return productRepository.findProductsByIds(productIds);
+    public Optional<LocalDateTime> getProductUpdatedAt(long id) {
+        return productRepository.findUpdatedAtById(id);
+    }
+
+    // Ghép version đã áp dụng trên node này của các cache và search index mà catalog đọc từ đó.
+    // Version trong Redis tăng trước khi các node xóa xong, dùng nó thì 304 có thể trả cho dữ liệu cũ.
+    @Override
+    public String getCatalogVersion() {
+        if (productSearchService.isRebuilding()) {
+            return null;
+        }
+        StringBuilder version = new StringBuilder(productSearchService.isReady() ? "indexed" : "db");
+        for (String namespace : List.of(PRODUCT_CACHE, FEATURED_PRODUCT_CACHE, FEATURED_PRODUCTS_CACHE,
+                ProductSearchService.NAMESPACE)) {
+            Long applied = invalidationBus.appliedVersion(namespace);
+            if (applied == null) {
+                return null;
+            }
+            version.append('.').append(applied);
+        }
+        return version.toString();
+    }
+
+    //  TÌM NHIỀU SẢN PHẨM THEO DANH SÁCH ID: giữ đúng thứ tự yêu cầu, bỏ id trùng,
+    //  lấy từ cache trước, chỉ query DB cho các id chưa có (một câu IN)
+    @Override
+    public List<ProductResponse> findProductsByIds(List<Long> productIds) throws InvalidParamException {
+        Set<String> keys = new LinkedHashSet<>();
+        for (Long productId : productIds) {
+            keys.add(String.valueOf(productId));
+        }
+        if (keys.size() > MAX_IDS_PER_REQUEST) {
+            throw new InvalidParamException("Number of ids must be <= " + MAX_IDS_PER_REQUEST);
+        }
+        Map<String, ProductResponse> found = productCache.getAll(keys, missing ->
+                productRepository.findProductsByIds(missing.stream().map(Long::valueOf).toList()).stream()
+                        .collect(Collectors.toMap(product -> String.valueOf(product.getId()),
+                                ProductResponse::fromProduct)));
+        return keys.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     @Override
     public Page<ProductResponse> getAllProducts(String keyword,
                                                 Long categoryId, PageRequest pageRequest) {
+        if (keyword != null && !keyword.isBlank() && productSearchService.isReady()) {
+            // Lấy id đã xếp hạng từ search index, chỉ load đúng các sản phẩm của trang
+            Page<Long> idsPage = productSearchService.search(keyword, categoryId, pageRequest);
+            Map<Long, Product> productsById = productRepository.findAllById(idsPage.getContent()).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            List<ProductResponse> responses = idsPage.getContent().stream()
+                    .map(productsById::get)
+                    .filter(Objects::nonNull)
+                    .map(ProductResponse::fromProduct)
+                    .toList();
+            return new PageImpl<>(responses, pageRequest, idsPage.getTotalElements());
+        }
         // Truy vấn DB và map về DTO
         Page<Product> productsPage =
                 productRepository.searchProducts(categoryId, keyword, pageRequest);
@@ -83,6 +191,58 @@ public class ProductService implements IProductService {
         return responsePage;
     }
 
+    @Override
+    public CursorPage<ProductResponse> getProductsAfter(String keyword, Long categoryId,
+                                                        String after, int limit) throws Exception {
+        int pageSize = Math.max(limit, 1);
+        if (keyword != null && !keyword.isBlank() && productSearchService.isReady()) {
+            // kết quả xếp theo điểm, cursor = (score, id) của phần tử cuối
+            IProductSearchService.Hit afterHit = after.isEmpty() ? null : CursorUtils.decode(after, 2,
+                    values -> new IProductSearchService.Hit(Long.parseLong(values[1]), Double.parseDouble(values[0])));
+            List<IProductSearchService.Hit> hits = productSearchService.searchAfter(keyword, categoryId,
+                    afterHit != null ? afterHit.score() : null,
+                    afterHit != null ? afterHit.productId() : null,
+                    pageSize + 1);
+            boolean hasMore = hits.size() > pageSize;
+            if (hasMore) {
+                hits = hits.subList(0, pageSize);
+            }
+            List<Long> ids = hits.stream().map(IProductSearchService.Hit::productId).toList();
+            Map<Long, Product> productsById = productRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            List<ProductResponse> responses = ids.stream()
+                    .map(productsById::get)
+                    .filter(Objects::nonNull)
+                    .map(ProductResponse::fromProduct)
+                    .toList();
+            IProductSearchService.Hit last = hits.isEmpty() ? null : hits.get(hits.size() - 1);
+            return new CursorPage<>(responses,
+                    hasMore ? CursorUtils.encode(last.score(), last.productId()) : null);
+        }
+
+        long afterId = after.isEmpty() ? 0L : CursorUtils.decode(after, 1, values -> Long.parseLong(values[0]));
+        // lấy dư 1 phần tử để biết còn trang sau hay không
+        List<Product> products = productRepository.searchProductsAfter(
+                categoryId, keyword, afterId, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = products.size() > pageSize;
+        if (hasMore) {
+            products = products.subList(0, pageSize);
+        }
+        List<ProductResponse> responses = products.stream().map(ProductResponse::fromProduct).toList();
+        return new CursorPage<>(responses,
+                hasMore ? CursorUtils.encode(products.get(products.size() - 1).getId()) : null);
+    }
+
+    @Override
+    public long countProducts(String keyword, Long categoryId) {
+        return countCache.get("products:" + categoryId + ":" + keyword, () -> {
+            if (keyword != null && !keyword.isBlank() && productSearchService.isReady()) {
+                return productSearchService.search(keyword, categoryId, PageRequest.of(0, 1)).getTotalElements();
+            }
+            return productRepository.countProducts(categoryId, keyword);
+        });
+    }
+
     @Override
     @Transactional
     public Product updateProduct(long id, ProductDTO productDTO) throws Exception {
@@ -108,6 +268,8 @@ public class ProductService implements IProductService {
         }
         // Lưu thay đổi
         Product savedProduct = productRepository.save(existingProduct);
+        TransactionUtils.afterCommit(() -> productSearchService.index(savedProduct));
+        evictProductCaches(savedProduct.getId());
 
         return savedProduct;
     }
@@ -117,7 +279,12 @@ public class ProductService implements IProductService {
     public void deleteProduct(long id) {
         Optional<Product> optional = productRepository.findById(id);
         if (optional.isPresent()) {
+            List<String> imageNames = new ArrayList<>(productImageRepository.findImageUrlsByProductId(id));
+            imageNames.add(optional.get().getThumbnail());
             productRepository.delete(optional.get());
+            imageDeletionService.enqueue(imageNames);
+            TransactionUtils.afterCommit(() -> productSearchService.remove(id));
+            evictProductCaches(id);
         }
     }
 
@@ -141,12 +308,39 @@ public class ProductService implements IProductService {
                 .imageUrl(productImageDTO.getImageUrl())
                 .build();
         //không cho insert quá 5 ảnh cho 1 sản phẩm
-        int size = productImageRepository.findByProductId(productId).size();
+        long size = productImageRepository.countByProductId(productId);
         if(size >= ProductImage.MAXIMUM_IMAGES_PER_PRODUCT) {
             throw new InvalidParamException(
                     "Number of images must be <= " + ProductImage.MAXIMUM_IMAGES_PER_PRODUCT);
         }
-        return productImageRepository.save(newProductImage);
+        ProductImage savedImage = productImageRepository.save(newProductImage);
+        // ảnh là một phần của response sản phẩm => cập nhật updatedAt để ETag đổi
+        existingProduct.setUpdatedAt(LocalDateTime.now());
+        evictProductCaches(existingProduct.getId());
+        return savedImage;
+    }
+
+    @Override
+    @Transactional
+    public List<ProductImage> createProductImages(Long productId, List<String> imageUrls) throws Exception {
+        Product existingProduct = productRepository.findByIdForUpdate(productId)
+                .orElseThrow(() -> new DataNotFoundException("Cannot find product with id: " + productId));
+        long size = productImageRepository.countByProductId(productId);
+        if (size + imageUrls.size() > ProductImage.MAXIMUM_IMAGES_PER_PRODUCT) {
+            throw new InvalidParamException(
+                    "Number of images must be <= " + ProductImage.MAXIMUM_IMAGES_PER_PRODUCT);
+        }
+        List<ProductImage> newImages = imageUrls.stream()
+                .map(imageUrl -> ProductImage.builder()
+                        .product(existingProduct)
+                        .imageUrl(imageUrl)
+                        .build())
+                .toList();
+        // id lấy từ pooled sequence => Hibernate gom thành một JDBC batch
+        List<ProductImage> savedImages = productImageRepository.saveAll(newImages);
+        existingProduct.setUpdatedAt(LocalDateTime.now());
+        evictProductCaches(productId);
+        return savedImages;
     }
 
     @Override
@@ -155,29 +349,29 @@ public class ProductService implements IProductService {
         ProductImage image = productImageRepository.findById(imageId)
                 .orElseThrow(() -> new DataNotFoundException("Image not found with id = " + imageId));
 
-        Path imagePath = Paths.get("uploads/" + image.getImageUrl());
-        if (Files.exists(imagePath)) {
-            Files.delete(imagePath);
-        }
-
         productImageRepository.deleteById(imageId);
+        // file được xóa bởi worker sau khi commit, và chỉ khi không còn row nào dùng chung
+        imageDeletionService.enqueue(List.of(image.getImageUrl()));
+        if (image.getProduct() != null) {
+            image.getProduct().setUpdatedAt(LocalDateTime.now());
+        }
+        evictProductCaches(image.getProduct() != null ? image.getProduct().getId() : null);
     }
     
     @Override
-    public List<Product> getFeaturedProducts(int limit) {
-
-        PageRequest pageRequest = PageRequest.of(0, limit);
-        return productRepository.findTopByOrderByIdDesc(pageRequest);
+    public List<ProductResponse> getFeaturedProducts(int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_FEATURED_LIMIT));
+        return featuredProductsCache.get("limit:" + size, () ->
+                productRepository.findTopByOrderByIdDesc(PageRequest.of(0, size)).stream()
+                        .map(ProductResponse::fromProduct)
+                        .toList());
     }
 
-    public Product getFeaturedProduct() {
-        Product product = (Product) redisTemplate.opsForValue().get(FEATURED_PRODUCT_KEY);
-        if (product == null) {
-            product = productRepository.findTopByOrderByIdDesc();
-            if (product != null) {
-                redisTemplate.opsForValue().set(FEATURED_PRODUCT_KEY, product);
-            }
-        }
-        return product;
+    @Override
+    public ProductResponse getFeaturedProduct() {
+        return featuredProductCache.get("top", () -> {
+            Product product = productRepository.findTopByOrderByIdDesc();
+            return product != null ? ProductResponse.fromProduct(product) : null;
+        });
     }
 }
@@ -0,0 +1,35 @@
+package com.project.shopapp.services.Search;
+
+import com.project.shopapp.models.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface IProductSearchService {
+    record Hit(long productId, double score) {
+    }
+
+    // true khi index đã được bật và build xong lần đầu
+    boolean isReady();
+
+    // true khi đang có lượt rebuild chờ hoặc đang chạy
+    boolean isRebuilding();
+
+    // Trả về id sản phẩm theo thứ tự liên quan giảm dần
+    Page<Long> search(String keyword, Long categoryId, Pageable pageable);
+
+    // Phân trang keyset: các kết quả xếp sau (afterScore, afterId), null = trang đầu
+    List<Hit> searchAfter(String keyword, Long categoryId, Double afterScore, Long afterId, int limit);
+
+    void index(Product product);
+
+    // Index nhiều sản phẩm, các node khác nhận một message cho cả lô
+    void indexAll(Collection<Product> products);
+
+    void remove(long productId);
+
+    Map<String, Object> rebuild();
+}
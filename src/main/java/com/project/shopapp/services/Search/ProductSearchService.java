@@ -0,0 +1,434 @@
+package com.project.shopapp.services.Search;
+
+import com.project.shopapp.components.CacheInvalidationBus;
+import com.project.shopapp.models.Product;
+import com.project.shopapp.repositories.ProductRepository;
+import com.project.shopapp.utils.VietnameseTokenizer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Inverted index over product name and description, kept in memory and
+ * ranked with BM25. Name terms carry a higher weight than description terms.
+ * <p>
+ * Every query syllable must match (the last one may be a prefix while the
+ * user is still typing). Candidates come from walking the shortest posting
+ * list, so a query costs time in proportion to its matches, not to the size
+ * of the catalog. Syllable bigrams only add to the score, so results that
+ * contain the exact phrase rank first.
+ * <p>
+ * Writes go through synchronized methods and reads take no lock. A rebuild
+ * fills a fresh index off to the side, replays the changes that arrived
+ * while it ran, and then swaps the two.
+ * <p>
+ * Each node keeps its own index. Changes are broadcast on
+ * CacheInvalidationBus, one message per batch of product ids, and other
+ * nodes re-read the changed products from the database in one query.
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductSearchService implements IProductSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchService.class);
+    public static final String NAMESPACE = "product-search";
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_WEIGHT = 3;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int MAX_PREFIX_TERMS = 50;
+    private static final Comparator<Hit> RANKING = Comparator.comparingDouble(Hit::score).reversed()
+            .thenComparingLong(Hit::productId);
+
+    private final ProductRepository productRepository;
+    private final CacheInvalidationBus invalidationBus;
+    private final Object rebuildLock = new Object();
+    // số lượt rebuild đang chờ hoặc đang chạy, index có thể đổi mà version không đổi
+    private final AtomicInteger rebuilds = new AtomicInteger();
+    // Một thread rebuild, tối đa một lượt chờ: lượt đang chờ sẽ đọc cả các thay đổi đến sau nên yêu cầu thêm bị bỏ
+    private final ThreadPoolExecutor rebuildExecutor = new ThreadPoolExecutor(
+            1, 1,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(1),
+            runnable -> {
+                Thread thread = new Thread(runnable, "product-search-index");
+                thread.setDaemon(true);
+                return thread;
+            },
+            (runnable, executor) -> rebuilds.decrementAndGet());
+
+    @Value("${search.index.enabled:true}")
+    private boolean enabled;
+
+    private volatile Index index;
+    // khác null trong lúc rebuild, giữ các thay đổi cần áp lại vào index mới
+    private Map<Long, Optional<Document>> pendingChanges;
+
+    private record Document(Long categoryId, int length, Map<String, Integer> termFrequencies) {
+    }
+
+    private static final class Index {
+        final ConcurrentSkipListMap<String, ConcurrentHashMap<Long, Integer>> postings = new ConcurrentSkipListMap<>();
+        final ConcurrentHashMap<Long, Document> documents = new ConcurrentHashMap<>();
+        final AtomicLong totalLength = new AtomicLong();
+
+        void put(long productId, Document document) {
+            remove(productId);
+            document.termFrequencies().forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, key -> new ConcurrentHashMap<>()).put(productId, frequency));
+            documents.put(productId, document);
+            totalLength.addAndGet(document.length());
+        }
+
+        void remove(long productId) {
+            Document old = documents.remove(productId);
+            if (old == null) {
+                return;
+            }
+            for (String term : old.termFrequencies().keySet()) {
+                postings.computeIfPresent(term, (key, ids) -> {
+                    ids.remove(productId);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+            totalLength.addAndGet(-old.length());
+        }
+
+        // Gộp posting của các term bắt đầu bằng prefix (bỏ qua bigram)
+        Map<Long, Integer> prefixPostings(String prefix) {
+            Map<Long, Integer> merged = new HashMap<>();
+            int terms = 0;
+            for (Map.Entry<String, ConcurrentHashMap<Long, Integer>> entry
+                    : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+                if (entry.getKey().indexOf(VietnameseTokenizer.BIGRAM_SEPARATOR) >= 0) {
+                    continue;
+                }
+                entry.getValue().forEach((id, frequency) -> merged.merge(id, frequency, Math::max));
+                if (++terms >= MAX_PREFIX_TERMS) {
+                    break;
+                }
+            }
+            return merged;
+        }
+    }
+
+    @PostConstruct
+    public void registerInvalidation() {
+        invalidationBus.register(NAMESPACE, this::reload, this::rebuildInBackground);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuildInBackground();
+    }
+
+    // build nền, trong lúc chờ thì tìm kiếm vẫn dùng truy vấn LIKE
+    private void rebuildInBackground() {
+        if (!enabled) {
+            return;
+        }
+        rebuilds.incrementAndGet();
+        rebuildExecutor.execute(() -> {
+            try {
+                doRebuild();
+            } catch (Exception e) {
+                logger.error("Cannot build product search index", e);
+            } finally {
+                rebuilds.decrementAndGet();
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    @Override
+    public boolean isReady() {
+        return enabled && index != null;
+    }
+
+    @Override
+    public boolean isRebuilding() {
+        return rebuilds.get() > 0;
+    }
+
+    @Override
+    public Page<Long> search(String keyword, Long categoryId, Pageable pageable) {
+        List<Hit> matches = match(keyword, categoryId);
+        matches.sort(RANKING);
+        int from = (int) Math.min(pageable.getOffset(), matches.size());
+        int to = Math.min(from + pageable.getPageSize(), matches.size());
+        List<Long> ids = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            ids.add(matches.get(i).productId());
+        }
+        return new PageImpl<>(ids, pageable, matches.size());
+    }
+
+    @Override
+    public List<Hit> searchAfter(String keyword, Long categoryId, Double afterScore, Long afterId, int limit) {
+        Hit after = afterScore != null && afterId != null ? new Hit(afterId, afterScore) : null;
+        // heap giữ limit kết quả tốt nhất, phần tử kém nhất ở đỉnh
+        PriorityQueue<Hit> top = new PriorityQueue<>(RANKING.reversed());
+        for (Hit hit : match(keyword, categoryId)) {
+            if (after != null && RANKING.compare(hit, after) <= 0) {
+                continue;
+            }
+            top.offer(hit);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Hit> result = new ArrayList<>(top);
+        result.sort(RANKING);
+        return result;
+    }
+
+    // Các sản phẩm khớp mọi âm tiết của keyword, kèm điểm BM25, chưa sắp xếp
+    private List<Hit> match(String keyword, Long categoryId) {
+        Index current = index;
+        List<String> syllables = VietnameseTokenizer.syllables(keyword);
+        List<Hit> matches = new ArrayList<>();
+        if (current == null || syllables.isEmpty()) {
+            return matches;
+        }
+
+        // term bắt buộc: từng âm tiết, âm tiết cuối cho phép khớp tiền tố
+        Set<String> distinct = new LinkedHashSet<>(syllables);
+        List<Map<Long, Integer>> required = new ArrayList<>(distinct.size());
+        String last = syllables.get(syllables.size() - 1);
+        for (String syllable : distinct) {
+            Map<Long, Integer> postings = current.postings.get(syllable);
+            if (postings == null && syllable.equals(last)) {
+                postings = current.prefixPostings(syllable);
+            }
+            if (postings == null || postings.isEmpty()) {
+                return matches;
+            }
+            required.add(postings);
+        }
+
+        List<Map<Long, Integer>> scoring = new ArrayList<>(required);
+        for (int i = 1; i < syllables.size(); i++) {
+            Map<Long, Integer> postings = current.postings.get(
+                    syllables.get(i - 1) + VietnameseTokenizer.BIGRAM_SEPARATOR + syllables.get(i));
+            if (postings != null) {
+                scoring.add(postings);
+            }
+        }
+
+        Map<Long, Integer> shortest = required.get(0);
+        for (Map<Long, Integer> postings : required) {
+            if (postings.size() < shortest.size()) {
+                shortest = postings;
+            }
+        }
+
+        int documentCount = Math.max(current.documents.size(), 1);
+        double averageLength = Math.max((double) current.totalLength.get() / documentCount, 1.0);
+        boolean filterCategory = categoryId != null && categoryId != 0;
+        for (Long productId : shortest.keySet()) {
+            Document document = current.documents.get(productId);
+            if (document == null || (filterCategory && !categoryId.equals(document.categoryId()))) {
+                continue;
+            }
+            boolean matchesAll = true;
+            for (Map<Long, Integer> postings : required) {
+                if (!postings.containsKey(productId)) {
+                    matchesAll = false;
+                    break;
+                }
+            }
+            if (!matchesAll) {
+                continue;
+            }
+            double score = 0;
+            double lengthNorm = K1 * (1 - B + B * document.length() / averageLength);
+            for (Map<Long, Integer> postings : scoring) {
+                Integer frequency = postings.get(productId);
+                if (frequency == null) {
+                    continue;
+                }
+                int df = postings.size();
+                double idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                score += idf * frequency * (K1 + 1) / (frequency + lengthNorm);
+            }
+            matches.add(new Hit(productId, score));
+        }
+        return matches;
+    }
+
+    @Override
+    public void index(Product product) {
+        indexAll(List.of(product));
+    }
+
+    @Override
+    public void indexAll(Collection<Product> products) {
+        if (!enabled) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(products.size());
+        for (Product product : products) {
+            if (product.getId() == null) {
+                continue;
+            }
+            apply(product.getId(), Optional.of(document(product)));
+            ids.add(product.getId());
+        }
+        if (!ids.isEmpty()) {
+            invalidationBus.publish(NAMESPACE, ids.stream().map(String::valueOf).collect(Collectors.joining(",")));
+        }
+    }
+
+    @Override
+    public void remove(long productId) {
+        if (!enabled) {
+            return;
+        }
+        apply(productId, Optional.empty());
+        invalidationBus.publish(NAMESPACE, String.valueOf(productId));
+    }
+
+    // Sản phẩm được sửa trên node khác: đọc lại cả lô id từ DB, id không còn trong DB thì bỏ khỏi index
+    private void reload(String key) {
+        if (!enabled) {
+            return;
+        }
+        Set<Long> ids = Arrays.stream(key.split(","))
+                .map(Long::parseLong)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, Document> documents = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            documents.put(product.getId(), document(product));
+        }
+        for (Long productId : ids) {
+            apply(productId, Optional.ofNullable(documents.get(productId)));
+        }
+    }
+
+    private synchronized void apply(long productId, Optional<Document> document) {
+        if (index != null) {
+            if (document.isPresent()) {
+                index.put(productId, document.get());
+            } else {
+                index.remove(productId);
+            }
+        }
+        if (pendingChanges != null) {
+            pendingChanges.put(productId, document);
+        }
+    }
+
+    @Override
+    public Map<String, Object> rebuild() {
+        rebuilds.incrementAndGet();
+        try {
+            return doRebuild();
+        } finally {
+            rebuilds.decrementAndGet();
+        }
+    }
+
+    private Map<String, Object> doRebuild() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        if (!enabled) {
+            return stats;
+        }
+        synchronized (rebuildLock) {
+            long start = System.currentTimeMillis();
+            synchronized (this) {
+                pendingChanges = new HashMap<>();
+            }
+            Index fresh = new Index();
+            try {
+                // keyset theo id để không phải OFFSET trên bảng lớn
+                long afterId = 0;
+                List<Object[]> rows;
+                do {
+                    rows = productRepository.findSearchDocuments(afterId, PageRequest.of(0, REBUILD_BATCH_SIZE));
+                    for (Object[] row : rows) {
+                        long productId = (Long) row[0];
+                        fresh.put(productId, document((String) row[1], (String) row[2], (Long) row[3]));
+                        afterId = productId;
+                    }
+                } while (rows.size() == REBUILD_BATCH_SIZE);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendingChanges = null;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                pendingChanges.forEach((productId, document) -> {
+                    if (document.isPresent()) {
+                        fresh.put(productId, document.get());
+                    } else {
+                        fresh.remove(productId);
+                    }
+                });
+                pendingChanges = null;
+                index = fresh;
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            logger.info("Product search index built: {} products, {} terms in {} ms",
+                    fresh.documents.size(), fresh.postings.size(), elapsed);
+            stats.put("documents", fresh.documents.size());
+            stats.put("terms", fresh.postings.size());
+            stats.put("elapsed_ms", elapsed);
+            return stats;
+        }
+    }
+
+    private static Document document(Product product) {
+        return document(product.getName(), product.getDescription(),
+                product.getCategory() != null ? product.getCategory().getId() : null);
+    }
+
+    private static Document document(String name, String description, Long categoryId) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        int length = 0;
+        for (String term : VietnameseTokenizer.tokenize(name)) {
+            termFrequencies.merge(term, NAME_WEIGHT, Integer::sum);
+            length += NAME_WEIGHT;
+        }
+        for (String term : VietnameseTokenizer.tokenize(description)) {
+            termFrequencies.merge(term, 1, Integer::sum);
+            length++;
+        }
+        return new Document(categoryId, length, termFrequencies);
+    }
+}
@@ -9,4 +9,10 @@ import org.springframework.stereotype.Service;
 public interface ITokenService {
 
     Token addToken(User user, String token);
+
+    void revokeAllTokens(User user);
+
+    String issueRefreshToken(Token session);
+
+    Token refreshToken(String refreshToken) throws Exception;
 }
@@ -1,52 +1,136 @@
 package com.project.shopapp.services.Token;
 
 import com.project.shopapp.components.JwtTokenUtils;
+import com.project.shopapp.components.TokenRevocationIndex;
+import com.project.shopapp.models.RefreshToken;
+import com.project.shopapp.repositories.RefreshTokenRepository;
 import com.project.shopapp.repositories.TokenRepository;
+import com.project.shopapp.repositories.UserRepository;
 import com.project.shopapp.exceptions.DataNotFoundException;
 import com.project.shopapp.exceptions.ExpiredTokenException;
 import com.project.shopapp.models.Token;
 import com.project.shopapp.models.User;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import com.project.shopapp.utils.TokenHashUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.UUID;
+import java.util.Base64;
 
 @Service
 @RequiredArgsConstructor
 public class TokenService implements ITokenService {
     private static final int MAX_TOKENS = 3;
     private final TokenRepository tokenRepository;
+    private final UserRepository userRepository;
     private final JwtTokenUtils jwtTokenUtil;
+    private final TokenRevocationIndex tokenRevocationIndex;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
     @Value("${jwt.expiration}")
     private int expiration;
+    @Value("${jwt.refresh-expiration}")
+    private int refreshExpiration;
 
     @Override
+    @Transactional
     public Token addToken(User user, String token) {
-        List<Token> userTokens = tokenRepository.findByUser(user);
-        int tokenCount = userTokens.size();
-        // Số lượng token vượt quá giới hạn, xóa một token cũ
-        if (tokenCount >= MAX_TOKENS) {
-            // Xóa token đầu tiên trong danh sách
-            Token tokenToDelete = userTokens.get(0);
-            tokenRepository.delete(tokenToDelete);
-        }
+        // Mỗi user có MAX_TOKENS slot, lần đăng nhập thứ n ghi đè slot (n - 1) % MAX_TOKENS,
+        // tức là phiên cũ nhất. Số round trip không phụ thuộc số token đã từng cấp.
+        userRepository.incrementSessionSeq(user.getId());
+        long sessionSeq = userRepository.findSessionSeq(user.getId());
+        int slot = (int) ((sessionSeq - 1) % MAX_TOKENS);
+
         long expirationInSeconds = expiration;
         LocalDateTime expirationDateTime = LocalDateTime.now().plusSeconds(expirationInSeconds);
-        // Tạo mới một token cho người dùng
-        Token newToken = Token.builder()
+        Token existingToken = tokenRepository.findByUserIdAndSlot(user.getId(), slot);
+        if (existingToken != null) {
+            tokenRevocationIndex.revoke(existingToken.getToken());
+            refreshTokenRepository.deleteBySessionId(existingToken.getId());
+        }
+        Token newToken = existingToken != null ? existingToken : Token.builder()
                 .user(user)
-                .token(token)
-                .revoked(false)
-                .expired(false)
-                .tokenType("Bearer")
-                .expirationDate(expirationDateTime)
+                .slot(slot)
                 .build();
+        newToken.setToken(token);
+        newToken.setRevoked(false);
+        newToken.setExpired(false);
+        newToken.setTokenType("Bearer");
+        newToken.setExpirationDate(expirationDateTime);
 
         tokenRepository.save(newToken);
+        tokenRevocationIndex.register(token);
 
         return newToken;
     }
+
+    @Override
+    @Transactional
+    public void revokeAllTokens(User user) {
+        for (Token token : tokenRepository.findByUser(user)) {
+            token.setRevoked(true);
+            tokenRepository.save(token);
+            tokenRevocationIndex.revoke(token.getToken());
+        }
+    }
+
+    // Refresh token dài hạn, dùng một lần, chỉ lưu SHA-256 và gắn với dòng phiên trong bảng tokens
+    @Override
+    @Transactional
+    public String issueRefreshToken(Token session) {
+        byte[] bytes = new byte[32];
+        secureRandom.nextBytes(bytes);
+        String refreshToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(RefreshToken.builder()
+                .token(session)
+                .tokenHash(TokenHashUtils.sha256(refreshToken))
+                .expirationDate(LocalDateTime.now().plusSeconds(refreshExpiration))
+                .used(false)
+                .build());
+        return refreshToken;
+    }
+
+    // Cấp access token mới cho phiên mà không cần BCrypt. Refresh token cũ bị đánh dấu đã dùng,
+    // nếu nó được gửi lại lần nữa thì coi như bị lộ và thu hồi cả phiên.
+    // Các refresh token đã dùng được giữ đến khi hết hạn để lần gửi lại nào cũng bị phát hiện.
+    @Override
+    @Transactional(noRollbackFor = ExpiredTokenException.class)
+    public Token refreshToken(String refreshToken) throws Exception {
+        RefreshToken storedToken = refreshTokenRepository.findByTokenHash(TokenHashUtils.sha256(refreshToken));
+        if (storedToken == null) {
+            throw new DataNotFoundException("Refresh token does not exist");
+        }
+        Token session = tokenRepository.findByIdForUpdate(storedToken.getToken().getId())
+                .orElseThrow(() -> new DataNotFoundException("Refresh token does not exist"));
+        if (session.isRevoked()
+                || storedToken.getExpirationDate().isBefore(LocalDateTime.now())
+                || !session.getUser().isActive()) {
+            throw new ExpiredTokenException("Refresh token is expired or revoked");
+        }
+        // nhận token bằng một câu UPDATE có điều kiện, hai request đồng thời chỉ một bên thắng
+        if (storedToken.isUsed() || refreshTokenRepository.markUsed(storedToken.getId()) == 0) {
+            session.setRevoked(true);
+            tokenRepository.save(session);
+            tokenRevocationIndex.revoke(session.getToken());
+            refreshTokenRepository.deleteBySessionId(session.getId());
+            throw new ExpiredTokenException("Refresh token was already used, session has been revoked");
+        }
+
+        String accessToken = jwtTokenUtil.generateToken(session.getUser());
+        tokenRevocationIndex.revoke(session.getToken());
+        session.setToken(accessToken);
+        session.setExpirationDate(LocalDateTime.now().plusSeconds(expiration));
+        tokenRepository.save(session);
+        tokenRevocationIndex.register(accessToken);
+        return session;
+    }
+
+    @Scheduled(fixedDelay = 3600000)
+    @Transactional
+    public void deleteExpiredRefreshTokens() {
+        refreshTokenRepository.deleteExpired(LocalDateTime.now());
+    }
 }
@@ -3,6 +3,7 @@ package com.project.shopapp.services.User;
 import com.project.shopapp.dtos.UpdateUserDTO;
 import com.project.shopapp.dtos.UserDTO;
 import com.project.shopapp.models.User;
+import com.project.shopapp.responses.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -11,9 +12,14 @@ public interface IUserService {
     String login(String phoneNumber, String password) throws Exception;
     User getUserDetailsFromToken(String token) throws Exception;
     User updateUser(Long userId, UpdateUserDTO updatedUserDTO) throws Exception;
+    void logoutAllSessions(Long userId) throws Exception;
     
     // Admin methods
     Page<User> getAllUsers(String keyword, Pageable pageable) throws Exception;
+    // Phân trang bằng cursor: after rỗng = trang đầu
+    CursorPage<User> getUsersAfter(String keyword, String after, int limit) throws Exception;
+    long countUsers(String keyword);
     void deleteUser(Long userId) throws Exception;
     User updateUserRole(Long userId, String newRole) throws Exception;
+    User updateUserActive(Long userId, boolean active) throws Exception;
 }
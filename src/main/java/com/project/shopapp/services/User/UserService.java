@@ -1,7 +1,10 @@
 package com.project.shopapp.services.User;
 
+import com.project.shopapp.components.CountCache;
 import com.project.shopapp.components.JwtTokenUtils;
 import com.project.shopapp.components.LocalizationUtils;
+import com.project.shopapp.components.PasswordHasher;
+import com.project.shopapp.components.UserPrincipalCache;
 import com.project.shopapp.dtos.UpdateUserDTO;
 import com.project.shopapp.dtos.UserDTO;
 import com.project.shopapp.exceptions.DataNotFoundException;
@@ -11,19 +14,22 @@ import com.project.shopapp.models.*;
 import com.project.shopapp.repositories.RoleRepository;
 import com.project.shopapp.repositories.TokenRepository;
 import com.project.shopapp.repositories.UserRepository;
+import com.project.shopapp.responses.CursorPage;
+import com.project.shopapp.services.Token.ITokenService;
+import com.project.shopapp.utils.CursorUtils;
 import com.project.shopapp.utils.MessageKeys;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 @RequiredArgsConstructor
@@ -31,11 +37,13 @@ import java.util.Optional;
 public class UserService implements IUserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtTokenUtils jwtTokenUtil;
-    private final AuthenticationManager authenticationManager;
     private final LocalizationUtils localizationUtils;
     private final TokenRepository tokenRepository;
+    private final UserPrincipalCache userPrincipalCache;
+    private final CountCache countCache;
+    private final ITokenService tokenService;
 
     @Override
     @Transactional
@@ -69,7 +77,7 @@ public class UserService implements IUserService {
         // Kiểm tra nếu có accountId, không yêu cầu password
         if (userDTO.getFacebookAccountId() == 0 && userDTO.getGoogleAccountId() == 0) {
             String password = userDTO.getPassword();
-            String encodedPassword = passwordEncoder.encode(password);
+            String encodedPassword = passwordHasher.encode(password);
             newUser.setPassword(encodedPassword);
         }
         return userRepository.save(newUser);
@@ -84,24 +92,24 @@ public class UserService implements IUserService {
 
         User existingUser = optionalUser.get();
 
-        //check password
+        //check password: BCrypt chỉ chạy một lần cho mỗi lần đăng nhập
         if (existingUser.getFacebookAccountId() == 0
                 && existingUser.getGoogleAccountId() == 0) {
-            if(!passwordEncoder.matches(password, existingUser.getPassword())) {
+            if(!passwordHasher.matches(password, existingUser.getPassword())) {
                 throw new BadCredentialsException(localizationUtils.getLocalizedMessage(MessageKeys.WRONG_PHONE_PASSWORD));
             }
+            // strength BCrypt đã tăng => hash lại bằng mật khẩu vừa xác thực
+            if (passwordHasher.upgradeEncoding(existingUser.getPassword())) {
+                existingUser.setPassword(passwordHasher.encode(password));
+                existingUser = userRepository.save(existingUser);
+            }
         }
 
-        if(!optionalUser.get().isActive()) {
+        if(!existingUser.isActive()) {
             throw new DataNotFoundException(localizationUtils.getLocalizedMessage(MessageKeys.USER_IS_LOCKED));
         }
 
-        UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                phoneNumber, password,
-                existingUser.getAuthorities()
-        );
-
-        authenticationManager.authenticate(authenticationToken);
+        userPrincipalCache.put(existingUser);
         return jwtTokenUtil.generateToken(existingUser);
     }
     @Transactional
@@ -145,11 +153,15 @@ public class UserService implements IUserService {
                 throw new DataNotFoundException("Password and retype password not the same");
             }
             String newPassword = updatedUserDTO.getPassword();
-            String encodedPassword = passwordEncoder.encode(newPassword);
+            String encodedPassword = passwordHasher.encode(newPassword);
             existingUser.setPassword(encodedPassword);
+            // mật khẩu đổi => mọi phiên cũ mất hiệu lực ở cả hai chế độ
+            userRepository.incrementTokenVersion(userId);
+            tokenService.revokeAllTokens(existingUser);
         }
         //existingUser.setRole(updatedRole);
         // Save the updated user
+        userPrincipalCache.evict(userId);
         return userRepository.save(existingUser);
     }
 
@@ -157,10 +169,15 @@ public class UserService implements IUserService {
     //get user detail from token
     @Override
     public User getUserDetailsFromToken(String token) throws Exception {
-        if(jwtTokenUtil.isTokenExpired(token)) {
+        Claims claims = jwtTokenUtil.parseClaims(token);
+        if(claims.getExpiration().before(new Date())) {
             throw new Exception("Token is expired");
         }
-        String phoneNumber = jwtTokenUtil.extractPhoneNumber(token);
+        Number userId = claims.get("userId", Number.class);
+        if (userId != null) {
+            return userPrincipalCache.getById(userId.longValue());
+        }
+        String phoneNumber = claims.getSubject();
         Optional<User> user = userRepository.findByPhoneNumber(phoneNumber);
 
         if (user.isPresent()) {
@@ -179,6 +196,26 @@ public class UserService implements IUserService {
         return userRepository.findAll(pageable);
     }
 
+    @Override
+    public CursorPage<User> getUsersAfter(String keyword, String after, int limit) throws Exception {
+        int pageSize = Math.max(limit, 1);
+        long afterId = after.isEmpty() ? 0L : CursorUtils.decode(after, 1, values -> Long.parseLong(values[0]));
+        List<User> users = userRepository.findUsersAfter(keyword == null ? "" : keyword, afterId,
+                PageRequest.of(0, pageSize + 1));
+        boolean hasMore = users.size() > pageSize;
+        if (hasMore) {
+            users = users.subList(0, pageSize);
+        }
+        return new CursorPage<>(users,
+                hasMore ? CursorUtils.encode(users.get(users.size() - 1).getId()) : null);
+    }
+
+    @Override
+    public long countUsers(String keyword) {
+        String normalizedKeyword = keyword == null ? "" : keyword;
+        return countCache.get("users:" + normalizedKeyword, () -> userRepository.countUsers(normalizedKeyword));
+    }
+
     @Override
     @Transactional
     public void deleteUser(Long userId) throws Exception {
@@ -191,6 +228,7 @@ public class UserService implements IUserService {
         }
         
         userRepository.delete(user);
+        userPrincipalCache.evict(userId);
     }
 
     @Override
@@ -203,8 +241,41 @@ public class UserService implements IUserService {
                 .orElseThrow(() -> new DataNotFoundException("Role not found"));
         
         user.setRole(role);
+        userRepository.incrementTokenVersion(userId);
+        tokenService.revokeAllTokens(user);
+        userPrincipalCache.evict(userId);
+        return userRepository.save(user);
+    }
+
+    @Override
+    @Transactional
+    public User updateUserActive(Long userId, boolean active) throws Exception {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new DataNotFoundException("User not found"));
+
+        if (user.getRole().getName().equals(Role.ADMIN)) {
+            throw new PermissionDenyException("Cannot lock admin user");
+        }
+
+        user.setActive(active);
+        if (!active) {
+            userRepository.incrementTokenVersion(userId);
+            tokenService.revokeAllTokens(user);
+        }
+        userPrincipalCache.evict(userId);
         return userRepository.save(user);
     }
+
+    // Logout mọi nơi: tăng tokenVersion (chế độ stateless) và thu hồi các token đã lưu (chế độ stateful)
+    @Override
+    @Transactional
+    public void logoutAllSessions(Long userId) throws Exception {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new DataNotFoundException("User not found"));
+        userRepository.incrementTokenVersion(userId);
+        tokenService.revokeAllTokens(user);
+        userPrincipalCache.evict(userId);
+    }
 }
 
 
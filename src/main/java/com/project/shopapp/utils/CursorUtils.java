@@ -0,0 +1,42 @@
+package com.project.shopapp.utils;
+
+import com.project.shopapp.exceptions.InvalidParamException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Cursor của phân trang keyset: giá trị khóa sắp xếp + id của phần tử cuối trang,
+ * mã hóa base64url để client chỉ việc gửi lại nguyên chuỗi qua ?after=.
+ */
+public class CursorUtils {
+    private static final String SEPARATOR = "|";
+
+    public static String encode(Object... values) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(SEPARATOR);
+            }
+            builder.append(values[i]);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static <T> T decode(String cursor, int parts, Function<String[], T> parser)
+            throws InvalidParamException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] values = raw.split(Pattern.quote(SEPARATOR), -1);
+            if (values.length != parts) {
+                throw new IllegalArgumentException();
+            }
+            return parser.apply(values);
+        } catch (RuntimeException e) {
+            throw new InvalidParamException("Invalid cursor: " + cursor);
+        }
+    }
+}
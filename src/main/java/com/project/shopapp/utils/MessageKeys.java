@@ -6,6 +6,7 @@ public class MessageKeys {
     public static final String LOGIN_FAILED =  "user.login.login_failed";
     public static final String PASSWORD_NOT_MATCH =  "user.register.password_not_match";
     public static final String USER_IS_LOCKED = "user.login.user_is_locked";
+    public static final String LOGIN_SERVER_BUSY = "user.login.server_busy";
 
     public static final String INSERT_CATEGORY_SUCCESSFULLY = "category.create_category.create_successfully";
     public static final String DELETE_CATEGORY_SUCCESSFULLY = "category.delete_category.delete_successfully";
@@ -0,0 +1,60 @@
+package com.project.shopapp.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Tách từ cho tiếng Việt: chữ thường, bỏ dấu (NFD + đ -> d), tách theo âm tiết.
+ * Một từ tiếng Việt thường gồm nhiều âm tiết ("điện thoại"), nên ngoài từng
+ * âm tiết còn sinh thêm bigram của hai âm tiết liền nhau ("dien_thoai") để
+ * kết quả khớp đúng cụm từ được xếp hạng cao hơn.
+ */
+public class VietnameseTokenizer {
+    public static final char BIGRAM_SEPARATOR = '_';
+
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String lower = text.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        StringBuilder builder = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                builder.append(c);
+            }
+        }
+        return builder.toString();
+    }
+
+    // Các âm tiết đã bỏ dấu, theo đúng thứ tự xuất hiện
+    public static List<String> syllables(String text) {
+        String normalized = normalize(text);
+        List<String> result = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                result.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    // Âm tiết + bigram âm tiết
+    public static List<String> tokenize(String text) {
+        List<String> syllables = syllables(text);
+        List<String> tokens = new ArrayList<>(syllables.size() * 2);
+        tokens.addAll(syllables);
+        for (int i = 1; i < syllables.size(); i++) {
+            tokens.add(syllables.get(i - 1) + BIGRAM_SEPARATOR + syllables.get(i));
+        }
+        return tokens;
+    }
+}
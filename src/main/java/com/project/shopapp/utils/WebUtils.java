@@ -8,4 +8,13 @@ public class WebUtils {
     public static HttpServletRequest getCurrentRequest() {
         return ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
     }
+
+    // ETag mạnh từ các thành phần quyết định nội dung response (version dữ liệu + tham số)
+    public static String etag(Object... parts) {
+        StringBuilder builder = new StringBuilder();
+        for (Object part : parts) {
+            builder.append(part).append('|');
+        }
+        return "\"" + TokenHashUtils.sha256Hex(builder.toString()).substring(0, 32) + "\"";
+    }
 }
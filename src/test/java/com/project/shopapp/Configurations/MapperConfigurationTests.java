@@ -0,0 +1,98 @@
+package com.project.shopapp.Configurations;
+
+import com.project.shopapp.dtos.OrderDTO;
+import com.project.shopapp.dtos.OrderWithDetailsDTO;
+import com.project.shopapp.models.Order;
+import com.project.shopapp.models.User;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MapperConfigurationTests {
+    private final ModelMapper modelMapper = new MapperConfiguration().modelMapper();
+
+    private static OrderDTO orderDTO(int i) {
+        return OrderDTO.builder()
+                .userId(99L)
+                .fullName("Customer " + i)
+                .email("customer" + i + "@example.com")
+                .phoneNumber("0900000" + String.format("%03d", i))
+                .address("Address " + i)
+                .totalMoney(10f * i)
+                .shippingMethod("express")
+                .shippingAddress("Shipping " + i)
+                .shippingDate(LocalDate.of(2030, 1, 1))
+                .paymentMethod("cod")
+                .build();
+    }
+
+    @Test
+    void orderDtoKeepsIdAndUserOfTheTarget() {
+        User user = User.builder().id(3L).build();
+        Order order = Order.builder().id(7L).user(user).build();
+
+        modelMapper.map(orderDTO(1), order);
+
+        assertEquals(7L, order.getId());
+        assertSame(user, order.getUser());
+        assertEquals(3L, user.getId());
+        assertEquals("Customer 1", order.getFullName());
+        assertEquals("Shipping 1", order.getShippingAddress());
+        assertEquals("cod", order.getPaymentMethod());
+    }
+
+    @Test
+    void orderWithDetailsDtoSkipsId() {
+        Order order = new Order();
+        modelMapper.map(OrderWithDetailsDTO.builder()
+                .userId(5L)
+                .fullName("Customer")
+                .phoneNumber("0900000001")
+                .build(), order);
+
+        assertNull(order.getId());
+        assertEquals("Customer", order.getFullName());
+    }
+
+    // Service chỉ gọi map(), map đồng thời không được thêm hay sửa type map dùng chung
+    @Test
+    void concurrentMappingDoesNotChangeTheConfiguration() throws Exception {
+        int typeMaps = modelMapper.getTypeMaps().size();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Order>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200; i++) {
+                int index = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    Order order = Order.builder().id((long) index).build();
+                    modelMapper.map(orderDTO(index), order);
+                    return order;
+                }));
+            }
+            start.countDown();
+            for (int i = 0; i < futures.size(); i++) {
+                Order order = futures.get(i).get(30, TimeUnit.SECONDS);
+                assertEquals((long) i, order.getId());
+                assertEquals("Customer " + i, order.getFullName());
+                assertNull(order.getUser());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(typeMaps, modelMapper.getTypeMaps().size());
+    }
+}
@@ -0,0 +1,99 @@
+package com.project.shopapp.benchmarks;
+
+import com.project.shopapp.components.JwtTokenUtils;
+import com.project.shopapp.models.Role;
+import com.project.shopapp.models.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of the JWT work JwtTokenFilter does for one authenticated request.
+ * {@code parsePerCall} repeats what the filter did before: extractPhoneNumber,
+ * then validateToken calling extractPhoneNumber and isTokenExpired, each one
+ * decoding the secret, building a parser and verifying the signature.
+ * {@code parseOnce} is the current path: one verification with the cached
+ * key and parser, then validation against the parsed claims.
+ * <p>
+ * Run with {@code main} from the test classpath, e.g. from the IDE.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JwtVerificationBenchmark {
+    private static final String SECRET = "TaqlmGv1iEDMRiFp/pHuID1+T84IABfuA0xXh4GhiUI=";
+
+    private JwtTokenUtils jwtTokenUtils;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        // chế độ stateless để không cần TokenRevocationIndex
+        jwtTokenUtils = new JwtTokenUtils(null);
+        ReflectionTestUtils.setField(jwtTokenUtils, "expiration", 900);
+        ReflectionTestUtils.setField(jwtTokenUtils, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtTokenUtils, "validationMode", "stateless");
+        ReflectionTestUtils.invokeMethod(jwtTokenUtils, "init");
+        Role role = new Role();
+        role.setName(Role.USER);
+        user = User.builder()
+                .id(1L)
+                .phoneNumber("0912345678")
+                .active(true)
+                .role(role)
+                .build();
+        token = jwtTokenUtils.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean parsePerCall() {
+        String phoneNumber = legacyClaims(token).getSubject();
+        return phoneNumber.equals(legacyClaims(token).getSubject())
+                && !legacyClaims(token).getExpiration().before(new Date());
+    }
+
+    @Benchmark
+    public boolean parseOnce() {
+        Claims claims = jwtTokenUtils.parseClaims(token);
+        return jwtTokenUtils.validateToken(token, claims, user);
+    }
+
+    // JwtTokenUtils trước khi cache key/parser
+    private static Claims legacyClaims(String token) {
+        Key key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,119 @@
+package com.project.shopapp.benchmarks;
+
+import com.project.shopapp.Configurations.MapperConfiguration;
+import com.project.shopapp.dtos.OrderDTO;
+import com.project.shopapp.dtos.OrderWithDetailsDTO;
+import com.project.shopapp.models.Order;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping an order DTO onto an Order entity in OrderService.
+ * {@code perCall*} repeats what the service did before: take the shared
+ * ModelMapper, call {@code typeMap(...).addMappings(...)} to skip
+ * {@code Order::setId}, then {@code map}, on every request. {@code startup*}
+ * is the current path: {@code map} only, with the type maps that
+ * MapperConfiguration registers once at startup.
+ * <p>
+ * Run with {@code main} from the test classpath, e.g. from the IDE.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OrderMappingBenchmark {
+    private ModelMapper legacyMapper;
+    private ModelMapper modelMapper;
+    private OrderDTO orderDTO;
+    private OrderWithDetailsDTO orderWithDetailsDTO;
+
+    @Setup
+    public void setUp() {
+        // bean ModelMapper trước đây: new ModelMapper(), type map được khai báo trong từng lần gọi
+        legacyMapper = new ModelMapper();
+        modelMapper = new MapperConfiguration().modelMapper();
+        orderDTO = OrderDTO.builder()
+                .userId(7L)
+                .fullName("Nguyễn Văn A")
+                .email("a@example.com")
+                .phoneNumber("0912345678")
+                .address("1 Lê Lợi, Quận 1")
+                .note("Giao giờ hành chính")
+                .totalMoney(1_250_000f)
+                .shippingMethod("express")
+                .shippingAddress("1 Lê Lợi, Quận 1")
+                .shippingDate(LocalDate.of(2030, 1, 1))
+                .paymentMethod("cod")
+                .build();
+        orderWithDetailsDTO = OrderWithDetailsDTO.builder()
+                .userId(7L)
+                .fullName("Nguyễn Văn A")
+                .email("a@example.com")
+                .phoneNumber("0912345678")
+                .address("1 Lê Lợi, Quận 1")
+                .note("Giao giờ hành chính")
+                .totalMoney(1_250_000f)
+                .shippingMethod("express")
+                .shippingAddress("1 Lê Lợi, Quận 1")
+                .shippingDate(LocalDate.of(2030, 1, 1))
+                .paymentMethod("cod")
+                .orderDetailDTOS(List.of())
+                .build();
+    }
+
+    @Benchmark
+    public Order perCallOrderDto() {
+        legacyMapper.typeMap(OrderDTO.class, Order.class)
+                .addMappings(mapper -> mapper.skip(Order::setId));
+        Order order = new Order();
+        legacyMapper.map(orderDTO, order);
+        return order;
+    }
+
+    @Benchmark
+    public Order startupOrderDto() {
+        Order order = new Order();
+        modelMapper.map(orderDTO, order);
+        return order;
+    }
+
+    @Benchmark
+    public Order perCallOrderWithDetailsDto() {
+        legacyMapper.typeMap(OrderWithDetailsDTO.class, Order.class)
+                .addMappings(mapper -> mapper.skip(Order::setId));
+        Order order = new Order();
+        legacyMapper.map(orderWithDetailsDTO, order);
+        return order;
+    }
+
+    @Benchmark
+    public Order startupOrderWithDetailsDto() {
+        Order order = new Order();
+        modelMapper.map(orderWithDetailsDTO, order);
+        return order;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderMappingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
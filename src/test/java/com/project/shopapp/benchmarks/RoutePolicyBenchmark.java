@@ -0,0 +1,146 @@
+package com.project.shopapp.benchmarks;
+
+import com.project.shopapp.components.RoutePolicyRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of resolving the access rule of one request. {@code antPath*} is the
+ * old per-request loop: every declared route in order, checked with
+ * AntPathMatcher until the first match. {@code trie*} is
+ * RoutePolicyRegistry's compiled per-method trie. The request set has one
+ * concrete path for every declared route (public, role-protected, and every
+ * GET/POST/PUT/DELETE variant), the same paths under the other methods, and
+ * paths that match no route. Each call takes the next request of the set in
+ * turn, so scores are per request.
+ * <p>
+ * Run with {@code main} from the test classpath, e.g. from the IDE.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RoutePolicyBenchmark {
+    private static final String PREFIX = "/api/v1";
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE"};
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+    private RoutePolicyRegistry registry;
+    private List<RoutePolicyRegistry.Route> routes;
+    private String[] methods;
+    private String[] paths;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        registry = new RoutePolicyRegistry(PREFIX);
+        routes = registry.getRoutes();
+        List<String> samples = new ArrayList<>();
+        for (RoutePolicyRegistry.Route route : routes) {
+            samples.add(concrete(route.pattern()));
+        }
+        // đường dẫn lạ hoặc sát biên pattern, phần lớn không khớp route nào nên phải duyệt hết danh sách
+        samples.addAll(List.of(
+                PREFIX,
+                PREFIX + "/unknown",
+                PREFIX + "/users/login/extra",
+                PREFIX + "/productsx/1",
+                PREFIX + "/orders",
+                PREFIX + "/products/",
+                "/other/products/1",
+                "/favicon.ico"));
+        List<String> requestMethods = new ArrayList<>();
+        List<String> requestPaths = new ArrayList<>();
+        for (String path : samples) {
+            for (String method : METHODS) {
+                requestMethods.add(method);
+                requestPaths.add(path);
+            }
+        }
+        methods = requestMethods.toArray(String[]::new);
+        paths = requestPaths.toArray(String[]::new);
+    }
+
+    private int nextRequest() {
+        int i = next;
+        next = i + 1 == paths.length ? 0 : i + 1;
+        return i;
+    }
+
+    @Benchmark
+    public RoutePolicyRegistry.Route antPathMatch() {
+        int i = nextRequest();
+        return antPathMatch(methods[i], paths[i]);
+    }
+
+    @Benchmark
+    public RoutePolicyRegistry.Route trieMatch() {
+        int i = nextRequest();
+        return registry.match(methods[i], paths[i]);
+    }
+
+    @Benchmark
+    public boolean antPathIsPublic() {
+        int i = nextRequest();
+        RoutePolicyRegistry.Route route = antPathMatch(methods[i], paths[i]);
+        return route != null && route.access() == RoutePolicyRegistry.Access.PUBLIC;
+    }
+
+    @Benchmark
+    public boolean trieIsPublic() {
+        int i = nextRequest();
+        return registry.isPublic(methods[i], paths[i]);
+    }
+
+    // JwtTokenFilter trước khi có trie: duyệt danh sách route cho mỗi request
+    private RoutePolicyRegistry.Route antPathMatch(String method, String path) {
+        for (RoutePolicyRegistry.Route route : routes) {
+            if (route.method().name().equals(method) && antPathMatcher.match(route.pattern(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    // Thay wildcard bằng giá trị cụ thể: "*" -> "12", "**" -> "12/images"
+    private static String concrete(String pattern) {
+        StringBuilder path = new StringBuilder();
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.equals("**")) {
+                path.append("/12/images");
+            } else if (segment.contains("*")) {
+                path.append('/').append(segment, 0, segment.indexOf('*')).append(segment.startsWith("*") ? "12" : "");
+            } else {
+                path.append('/').append(segment);
+            }
+        }
+        return path.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RoutePolicyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,119 @@
+package com.project.shopapp.components;
+
+import com.project.shopapp.models.Role;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoutePolicyRegistryTests {
+    private static final String PREFIX = "/api/v1";
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "PATCH"};
+
+    private final RoutePolicyRegistry registry = new RoutePolicyRegistry(PREFIX);
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    // Kết quả mong đợi: rule khai báo đầu tiên khớp theo AntPathMatcher, giống SecurityFilterChain
+    private RoutePolicyRegistry.Route expected(String method, String path) {
+        for (RoutePolicyRegistry.Route route : registry.getRoutes()) {
+            if (route.method().name().equals(method) && antPathMatcher.match(route.pattern(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    void matchesAntPathMatcherForEveryDeclaredRoute() {
+        Set<String> paths = new LinkedHashSet<>();
+        for (RoutePolicyRegistry.Route route : registry.getRoutes()) {
+            paths.addAll(samplePaths(route.pattern()));
+        }
+        paths.addAll(List.of(
+                PREFIX,
+                PREFIX + "/unknown",
+                PREFIX + "/users/login/extra",
+                PREFIX + "/users/5",
+                PREFIX + "/usersx",
+                PREFIX + "/products/images/a.jpg/extra",
+                PREFIX + "/products/image-variants",
+                PREFIX + "/productsx/1",
+                PREFIX + "/orders",
+                PREFIX + "/order_details",
+                "/other/products/1",
+                PREFIX + "/products/",
+                PREFIX + "/users/login/",
+                PREFIX + "//products/1"));
+
+        int checked = 0;
+        for (String path : paths) {
+            for (String method : METHODS) {
+                assertSame(expected(method, path), registry.match(method, path), method + " " + path);
+                checked++;
+            }
+        }
+        assertTrue(checked > registry.getRoutes().size() * METHODS.length);
+    }
+
+    @Test
+    void firstDeclaredRuleWins() {
+        RoutePolicyRegistry.Route jobs = registry.match("GET", PREFIX + "/products/image-variants/jobs/abc");
+        assertEquals(RoutePolicyRegistry.Access.ROLES, jobs.access());
+        assertArrayEquals(new String[]{Role.ADMIN}, jobs.roles());
+        RoutePolicyRegistry.Route storeJobs = registry.match("GET", PREFIX + "/products/image-store/jobs/abc");
+        assertEquals(RoutePolicyRegistry.Access.ROLES, storeJobs.access());
+        assertArrayEquals(new String[]{Role.ADMIN}, storeJobs.roles());
+        assertTrue(registry.isPublic("GET", PREFIX + "/products/12"));
+        assertTrue(registry.isPublic("GET", PREFIX + "/products/images/abc.jpg"));
+    }
+
+    @Test
+    void publicRoutes() {
+        assertTrue(registry.isPublic("POST", PREFIX + "/users/login"));
+        assertTrue(registry.isPublic("POST", PREFIX + "/users/refresh"));
+        assertTrue(registry.isPublic("GET", PREFIX + "/categories"));
+        assertFalse(registry.isPublic("POST", PREFIX + "/categories/1"));
+        assertFalse(registry.isPublic("GET", PREFIX + "/users"));
+        assertFalse(registry.isPublic("GET", PREFIX + "/orders/1"));
+        assertNull(registry.match("PATCH", PREFIX + "/products/1"));
+    }
+
+    // Thay wildcard của pattern bằng vài giá trị cụ thể
+    private static List<String> samplePaths(String pattern) {
+        List<String> paths = new ArrayList<>();
+        paths.add("");
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            List<String> next = new ArrayList<>();
+            for (String path : paths) {
+                if (segment.equals("**")) {
+                    next.add(path);
+                    next.add(path + "/a");
+                    next.add(path + "/a/b");
+                } else if (segment.endsWith("**") || segment.endsWith("*")) {
+                    String prefix = segment.substring(0, segment.indexOf('*'));
+                    if (!prefix.isEmpty()) {
+                        next.add(path + "/" + prefix);
+                    }
+                    next.add(path + "/" + prefix + "x1");
+                } else {
+                    next.add(path + "/" + segment);
+                }
+            }
+            paths = next;
+        }
+        return paths;
+    }
+}
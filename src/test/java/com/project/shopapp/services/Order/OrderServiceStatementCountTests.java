@@ -0,0 +1,125 @@
+package com.project.shopapp.services.Order;
+
+import com.project.shopapp.Configurations.MapperConfiguration;
+import com.project.shopapp.components.CountCache;
+import com.project.shopapp.dtos.CartItemDTO;
+import com.project.shopapp.dtos.OrderDTO;
+import com.project.shopapp.models.Order;
+import com.project.shopapp.models.Product;
+import com.project.shopapp.models.Role;
+import com.project.shopapp.models.User;
+import com.project.shopapp.repositories.OrderDetailRepository;
+import com.project.shopapp.repositories.ProductRepository;
+import com.project.shopapp.repositories.RoleRepository;
+import com.project.shopapp.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * createOrder must cost the same number of JDBC statements whatever the size
+ * of the cart: one query for all cart products and batched order detail
+ * inserts, instead of one findById and one INSERT per line.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({OrderService.class, MapperConfiguration.class, CountCache.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderServiceStatementCountTests {
+    private static final int PRODUCTS = 50;
+
+    @Autowired
+    private IOrderService orderService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private OrderDetailRepository orderDetailRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        Role role = new Role();
+        role.setName(Role.USER);
+        role = roleRepository.save(role);
+        user = userRepository.save(User.builder()
+                .fullName("Statement Count")
+                .phoneNumber("0900000100")
+                .password("password")
+                .active(true)
+                .role(role)
+                .build());
+        List<Product> newProducts = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            newProducts.add(Product.builder()
+                    .name("product " + i)
+                    .price(10f + i)
+                    .quantity(100)
+                    .stock_quantity(100)
+                    .build());
+        }
+        products = productRepository.saveAll(newProducts);
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithTheCart() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        List<Long> counts = new ArrayList<>();
+        for (int items : new int[]{1, 5, 20, 50}) {
+            statistics.clear();
+            Order order = orderService.createOrder(orderOf(items));
+            counts.add(statistics.getPrepareStatementCount());
+            assertEquals(items, orderDetailRepository.findByOrderId(order.getId()).size());
+        }
+        long min = counts.stream().mapToLong(Long::longValue).min().orElseThrow();
+        long max = counts.stream().mapToLong(Long::longValue).max().orElseThrow();
+        // lần lấy thêm một khối id từ order_details_seq có thể rơi vào đơn bất kỳ
+        assertTrue(max - min <= 1, "statements per order: " + counts);
+        assertTrue(max <= 6, "statements per order: " + counts);
+    }
+
+    private OrderDTO orderOf(int items) {
+        List<CartItemDTO> cartItems = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            cartItems.add(CartItemDTO.builder()
+                    .productId(products.get(i).getId())
+                    .quantity(1 + i % 3)
+                    .build());
+        }
+        return OrderDTO.builder()
+                .userId(user.getId())
+                .fullName("Statement Count")
+                .email("count@example.com")
+                .phoneNumber("0900000100")
+                .address("1 Test Street")
+                .totalMoney(100f)
+                .shippingMethod("express")
+                .shippingAddress("1 Test Street")
+                .paymentMethod("cod")
+                .cartItems(cartItems)
+                .build();
+    }
+}
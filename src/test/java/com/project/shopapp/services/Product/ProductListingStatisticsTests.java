@@ -0,0 +1,108 @@
+package com.project.shopapp.services.Product;
+
+import com.project.shopapp.components.CacheInvalidationBus;
+import com.project.shopapp.components.CountCache;
+import com.project.shopapp.components.TieredCacheManager;
+import com.project.shopapp.models.Category;
+import com.project.shopapp.models.Product;
+import com.project.shopapp.models.ProductImage;
+import com.project.shopapp.responses.Product.ProductResponse;
+import com.project.shopapp.services.Image.IImageDeletionService;
+import com.project.shopapp.services.Search.IProductSearchService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The product listing must run the same number of statements for a page of
+ * 5 and a page of 50: one select joining category, one batched select for
+ * the images of the page and the COUNT, with no per-product lazy loads.
+ * The test transaction stays open while the page is mapped, as
+ * open-in-view does for the controller.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import({ProductService.class, CountCache.class})
+class ProductListingStatisticsTests {
+    private static final int PRODUCTS = 60;
+    private static final int IMAGES_PER_PRODUCT = 2;
+
+    @Autowired
+    private IProductService productService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @MockBean
+    private IProductSearchService productSearchService;
+    @MockBean
+    private TieredCacheManager tieredCacheManager;
+    @MockBean
+    private CacheInvalidationBus invalidationBus;
+    @MockBean
+    private IImageDeletionService imageDeletionService;
+
+    @BeforeEach
+    void setUp() {
+        Category[] categories = new Category[3];
+        for (int i = 0; i < categories.length; i++) {
+            categories[i] = entityManager.persist(Category.builder().name("category " + i).build());
+        }
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = entityManager.persist(Product.builder()
+                    .name("product " + i)
+                    .price(10f + i)
+                    .quantity(100)
+                    .stock_quantity(100)
+                    .category(categories[i % categories.length])
+                    .build());
+            for (int j = 0; j < IMAGES_PER_PRODUCT; j++) {
+                entityManager.persist(ProductImage.builder()
+                        .product(product)
+                        .imageUrl("image-" + i + "-" + j + ".jpg")
+                        .build());
+            }
+        }
+        // các câu SQL trong test phải đi DB, không lấy từ persistence context
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private long statementsForPage(int size) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        Page<ProductResponse> page = productService.getAllProducts(null, 0L,
+                PageRequest.of(0, size, Sort.by("id").ascending()));
+        assertEquals(size, page.getNumberOfElements());
+        assertEquals(PRODUCTS, page.getTotalElements());
+        page.getContent().forEach(response ->
+                assertEquals(IMAGES_PER_PRODUCT, response.getProductImages().size()));
+        long statements = statistics.getPrepareStatementCount();
+        entityManager.clear();
+        return statements;
+    }
+
+    @Test
+    void statementCountDoesNotDependOnPageSize() {
+        long smallPage = statementsForPage(5);
+        long largePage = statementsForPage(50);
+        assertEquals(smallPage, largePage);
+        // select sản phẩm + category, select ảnh theo lô, COUNT
+        assertEquals(3, largePage);
+    }
+}
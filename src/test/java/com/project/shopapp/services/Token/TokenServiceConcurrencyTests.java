@@ -0,0 +1,169 @@
+package com.project.shopapp.services.Token;
+
+import com.project.shopapp.components.JwtTokenUtils;
+import com.project.shopapp.components.TokenRevocationIndex;
+import com.project.shopapp.exceptions.ExpiredTokenException;
+import com.project.shopapp.models.RefreshToken;
+import com.project.shopapp.models.Role;
+import com.project.shopapp.models.Token;
+import com.project.shopapp.models.User;
+import com.project.shopapp.repositories.RefreshTokenRepository;
+import com.project.shopapp.repositories.RoleRepository;
+import com.project.shopapp.repositories.TokenRepository;
+import com.project.shopapp.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Many threads log the same user in at once while another thread keeps
+ * saving a stale copy of that user, as updateUser does. The slot ring must
+ * stay at MAX_TOKENS rows and session_seq must count every login. The same
+ * refresh token sent concurrently must be accepted at most once.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(TokenService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenServiceConcurrencyTests {
+    private static final int MAX_TOKENS = 3;
+    private static final int THREADS = 8;
+    private static final int LOGINS_PER_THREAD = 25;
+
+    @Autowired
+    private ITokenService tokenService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private TokenRepository tokenRepository;
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+    @MockBean
+    private JwtTokenUtils jwtTokenUtils;
+    @MockBean
+    private TokenRevocationIndex tokenRevocationIndex;
+
+    private User createUser(String phoneNumber) {
+        Role role = roleRepository.findAll().stream()
+                .filter(r -> Role.USER.equals(r.getName()))
+                .findFirst()
+                .orElseGet(() -> {
+                    Role newRole = new Role();
+                    newRole.setName(Role.USER);
+                    return roleRepository.save(newRole);
+                });
+        return userRepository.save(User.builder()
+                .fullName("Stress Test")
+                .phoneNumber(phoneNumber)
+                .password("password")
+                .active(true)
+                .role(role)
+                .build());
+    }
+
+    @Test
+    void concurrentLoginsKeepTheSessionCap() throws Exception {
+        User user = createUser("0900000001");
+        User staleCopy = userRepository.findById(user.getId()).orElseThrow();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < LOGINS_PER_THREAD; i++) {
+                        tokenService.addToken(user, "token-" + thread + "-" + i);
+                    }
+                    return null;
+                }));
+            }
+            // ghi cả entity với session_seq/token_version cũ trong lúc login
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 20; i++) {
+                    staleCopy.setAddress("address " + i);
+                    userRepository.save(staleCopy);
+                }
+                return null;
+            }));
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Token> tokens = tokenRepository.findByUser(user);
+        assertEquals(MAX_TOKENS, tokens.size());
+        assertEquals(Set.of(0, 1, 2), tokens.stream().map(Token::getSlot).collect(Collectors.toSet()));
+        assertEquals(THREADS * LOGINS_PER_THREAD, userRepository.findSessionSeq(user.getId()));
+        assertEquals(0, userRepository.findById(user.getId()).orElseThrow().getTokenVersion());
+    }
+
+    @Test
+    void concurrentRefreshClaimsTheTokenOnce() throws Exception {
+        AtomicInteger issued = new AtomicInteger();
+        when(jwtTokenUtils.generateToken(any())).thenAnswer(invocation -> "access-" + issued.incrementAndGet());
+        User user = createUser("0900000002");
+        Token session = tokenService.addToken(user, "access-0");
+        String refreshToken = tokenService.issueRefreshToken(session);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        tokenService.refreshToken(refreshToken);
+                        return true;
+                    } catch (ExpiredTokenException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int succeeded = 0;
+            for (Future<Boolean> future : futures) {
+                if (future.get(60, TimeUnit.SECONDS)) {
+                    succeeded++;
+                }
+            }
+            assertTrue(succeeded <= 1, succeeded + " refreshes accepted the same token");
+        } finally {
+            pool.shutdownNow();
+        }
+        // request thứ hai trở đi là dùng lại token nên phiên bị thu hồi
+        assertTrue(tokenRepository.findById(session.getId()).orElseThrow().isRevoked());
+    }
+}